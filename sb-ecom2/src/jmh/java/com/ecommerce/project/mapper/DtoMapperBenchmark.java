@@ -0,0 +1,140 @@
+package com.ecommerce.project.mapper;
+
+import com.ecommerce.project.model.Address;
+import com.ecommerce.project.model.Category;
+import com.ecommerce.project.model.Order;
+import com.ecommerce.project.model.OrderItem;
+import com.ecommerce.project.model.Payment;
+import com.ecommerce.project.model.Product;
+import com.ecommerce.project.payload.OrderDTO;
+import com.ecommerce.project.payload.ProductDTO;
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DtoMapper against the ModelMapper configuration the services used before it (the former
+ * AppConfig bean), on the two hot shapes: a catalog page of products and an order-history
+ * page of orders with their items, payment and address.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DtoMapperBenchmark {
+
+    @Param({"10", "50"})
+    private int pageSize;
+
+    private final DtoMapper dtoMapper = new DtoMapper();
+    private ModelMapper modelMapper;
+
+    private List<Product> products;
+    private List<Order> orders;
+
+    @Setup
+    public void setUp() {
+        modelMapper = new ModelMapper();
+        modelMapper.getConfiguration()
+                .setSkipNullEnabled(true)
+                .setFieldMatchingEnabled(true)
+                .setFieldAccessLevel(org.modelmapper.config.Configuration.AccessLevel.PRIVATE);
+        modelMapper.typeMap(ProductDTO.class, Product.class)
+                .addMappings(cfg -> {
+                    cfg.skip(Product::setProductId);
+                    cfg.skip(Product::setUser);
+                    cfg.skip(Product::setCategory);
+                    cfg.skip(Product::setProducts);
+                });
+        modelMapper.typeMap(Product.class, ProductDTO.class);
+
+        Category category = new Category(1L, "Electronics", new ArrayList<>());
+        products = new ArrayList<>();
+        for (long i = 1; i <= pageSize; i++) {
+            Product product = new Product();
+            product.setProductId(i);
+            product.setProductName("Product " + i);
+            product.setImage("product-" + i + ".png");
+            product.setDescription("Description of product " + i);
+            product.setQuantity(100);
+            product.setPrice(20.0 + i);
+            product.setDiscount(10);
+            product.setSpecialPrice(18.0 + i);
+            product.setCategory(category);
+            products.add(product);
+        }
+
+        orders = new ArrayList<>();
+        for (long i = 1; i <= pageSize; i++) {
+            Address address = new Address("Street " + i, "Building " + i, "City", "State", "Country", "123456");
+            address.setAddressId(i);
+            Order order = new Order();
+            order.setOrderId(i);
+            order.setEmail("user@example.com");
+            order.setOrderDate(LocalDate.of(2024, 1, 1).plusDays(i));
+            order.setOrderStatus("Order Accepted !");
+            order.setTotalAmount(100.0);
+            order.setAddress(address);
+            Payment payment = new Payment("CARD", "pi_" + i, "succeeded", "Payment successful", "Stripe");
+            payment.setPaymentId(i);
+            payment.setOrder(order);
+            order.setPayment(payment);
+            for (int j = 0; j < 3; j++) {
+                OrderItem item = new OrderItem();
+                item.setOrderItemId(i * 10 + j);
+                item.setProduct(products.get((int) ((i + j) % products.size())));
+                item.setQuantity(j + 1);
+                item.setOrderedProductPrice(18.0);
+                item.setOrder(order);
+                order.getOrderItems().add(item);
+            }
+            orders.add(order);
+        }
+    }
+
+    @Benchmark
+    public List<ProductDTO> productsDtoMapper() {
+        List<ProductDTO> page = new ArrayList<>(products.size());
+        for (Product product : products) {
+            page.add(dtoMapper.toProductDTO(product));
+        }
+        return page;
+    }
+
+    @Benchmark
+    public List<ProductDTO> productsModelMapper() {
+        List<ProductDTO> page = new ArrayList<>(products.size());
+        for (Product product : products) {
+            page.add(modelMapper.map(product, ProductDTO.class));
+        }
+        return page;
+    }
+
+    @Benchmark
+    public List<OrderDTO> ordersDtoMapper() {
+        List<OrderDTO> page = new ArrayList<>(orders.size());
+        for (Order order : orders) {
+            page.add(dtoMapper.toOrderDTO(order));
+        }
+        return page;
+    }
+
+    @Benchmark
+    public List<OrderDTO> ordersModelMapper() {
+        List<OrderDTO> page = new ArrayList<>(orders.size());
+        for (Order order : orders) {
+            page.add(modelMapper.map(order, OrderDTO.class));
+        }
+        return page;
+    }
+}
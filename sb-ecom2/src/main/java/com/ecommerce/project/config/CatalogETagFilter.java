@@ -0,0 +1,85 @@
+package com.ecommerce.project.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HexFormat;
+
+/**
+ * Conditional GET for /api/public/**. The strong ETag is a SHA-256 of the response body, so it
+ * changes with anything the body shows, stock included (checkouts do not bump the catalog
+ * version). A matching If-None-Match is answered with 304 and no body.
+ * Runs ahead of {@link CatalogPageCacheFilter}, so repeated pages are hashed from the cached body
+ * without reaching a controller.
+ */
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE - 1)
+public class CatalogETagFilter extends OncePerRequestFilter {
+
+    @Value("${catalog.http.max-age-seconds:30}")
+    private long maxAgeSeconds;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !"GET".equals(request.getMethod()) || !request.getRequestURI().startsWith("/api/public/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        // Buffered so the tag can be computed from the body; errors are never tagged
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        chain.doFilter(request, wrapper);
+        if (wrapper.getStatus() != HttpServletResponse.SC_OK) {
+            wrapper.copyBodyToResponse();
+            return;
+        }
+
+        String etag = tag(wrapper.getContentAsByteArray());
+        wrapper.setHeader(HttpHeaders.ETAG, etag);
+        wrapper.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl());
+        if (matches(request, etag)) {
+            wrapper.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            wrapper.resetBuffer();
+        }
+        wrapper.copyBodyToResponse();
+    }
+
+    private static String tag(byte[] body) {
+        try {
+            return "\"" + HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(body)) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private String cacheControl() {
+        return "public, max-age=" + maxAgeSeconds;
+    }
+
+    private static boolean matches(HttpServletRequest request, String etag) {
+        for (String header : Collections.list(request.getHeaders(HttpHeaders.IF_NONE_MATCH))) {
+            boolean match = Arrays.stream(header.split(","))
+                    .map(String::trim)
+                    .anyMatch(candidate -> candidate.equals("*") || candidate.equals(etag));
+            if (match) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
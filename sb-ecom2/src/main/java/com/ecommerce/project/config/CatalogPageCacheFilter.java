@@ -0,0 +1,89 @@
+package com.ecommerce.project.config;
+
+import com.ecommerce.project.service.CatalogPageCache;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+/**
+ * Serves repeated anonymous catalog pages (/api/public/products and
+ * /api/public/categories/{id}/products) straight from {@link CatalogPageCache}, before the
+ * request reaches the controller, Hibernate or Jackson. Misses go through the normal chain
+ * and a 200 response is stored.
+ */
+@Component
+public class CatalogPageCacheFilter extends OncePerRequestFilter {
+
+    private static final Pattern CACHED_PATHS =
+            Pattern.compile("^/api/public/(products|categories/\\d+/products)$");
+
+    @Autowired
+    private CatalogPageCache catalogPageCache;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !"GET".equals(request.getMethod())
+                || !CACHED_PATHS.matcher(request.getRequestURI()).matches();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String key = cacheKey(request);
+
+        CatalogPageCache.Page page = catalogPageCache.get(key);
+        if (page != null) {
+            response.setStatus(HttpServletResponse.SC_OK);
+            page.headers().forEach((name, values) -> values.forEach(value -> response.addHeader(name, value)));
+            response.setContentType(page.contentType());
+            response.setContentLength(page.body().length);
+            response.getOutputStream().write(page.body());
+            return;
+        }
+
+        long version = catalogPageCache.version();
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        chain.doFilter(request, wrapper);
+
+        if (wrapper.getStatus() == HttpServletResponse.SC_OK) {
+            String contentType = wrapper.getContentType() != null ? wrapper.getContentType() : MediaType.APPLICATION_JSON_VALUE;
+            catalogPageCache.put(key, version,
+                    new CatalogPageCache.Page(wrapper.getContentAsByteArray(), contentType, replayedHeaders(wrapper)));
+        }
+        wrapper.copyBodyToResponse();
+    }
+
+    // Path plus every query parameter in a fixed order; Origin is part of the key because the CORS headers replayed on a hit depend on it
+    private static String cacheKey(HttpServletRequest request) {
+        StringBuilder key = new StringBuilder(request.getRequestURI()).append('?');
+        new TreeMap<>(request.getParameterMap()).forEach((name, values) ->
+                key.append(name).append('=').append(String.join(",", values)).append('&'));
+        return key.append('|').append(request.getHeader(HttpHeaders.ORIGIN)).toString();
+    }
+
+    // Only the headers the MVC layer sets per request (CORS); security headers are written again on every response
+    private static Map<String, List<String>> replayedHeaders(HttpServletResponse response) {
+        Map<String, List<String>> headers = new LinkedHashMap<>();
+        for (String name : response.getHeaderNames()) {
+            if (name.regionMatches(true, 0, "Access-Control-", 0, 15) || name.equalsIgnoreCase(HttpHeaders.VARY)) {
+                headers.putIfAbsent(name, new ArrayList<>(response.getHeaders(name)));
+            }
+        }
+        return headers;
+    }
+}
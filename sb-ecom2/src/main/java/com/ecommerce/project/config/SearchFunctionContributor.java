@@ -0,0 +1,49 @@
+package com.ecommerce.project.config;
+
+import org.hibernate.boot.model.FunctionContributions;
+import org.hibernate.boot.model.FunctionContributor;
+import org.hibernate.type.BasicType;
+import org.hibernate.type.StandardBasicTypes;
+
+/**
+ * Registers the Postgres full-text search functions used by product search.
+ * The document expression must stay identical to the one indexed in schema.sql,
+ * otherwise the planner cannot use the GIN index.
+ * Also registers the row-value comparisons used by keyset pagination, which JPQL cannot express.
+ */
+public class SearchFunctionContributor implements FunctionContributor {
+
+    public static final String FTS_MATCH = "fts_match";
+    public static final String FTS_RANK = "fts_rank";
+
+    private static final String DOCUMENT =
+            "to_tsvector('english', coalesce(?1, '') || ' ' || coalesce(?2, ''))";
+
+    private static final String QUERY = "to_tsquery('english', ?3)";
+
+    public static final String ROW_AFTER = "row_after";
+    public static final String ROW_BEFORE = "row_before";
+
+    @Override
+    public void contributeFunctions(FunctionContributions functionContributions) {
+        BasicType<Boolean> booleanType = functionContributions.getTypeConfiguration()
+                .getBasicTypeRegistry().resolve(StandardBasicTypes.BOOLEAN);
+        BasicType<Double> doubleType = functionContributions.getTypeConfiguration()
+                .getBasicTypeRegistry().resolve(StandardBasicTypes.DOUBLE);
+
+        // fts_match(productName, description, tsquery) -> document @@ tsquery
+        functionContributions.getFunctionRegistry()
+                .registerPattern(FTS_MATCH, "(" + DOCUMENT + " @@ " + QUERY + ")", booleanType);
+
+        // fts_rank(productName, description, tsquery) -> ts_rank(document, tsquery)
+        functionContributions.getFunctionRegistry()
+                .registerPattern(FTS_RANK, "ts_rank(" + DOCUMENT + ", " + QUERY + ")", doubleType);
+
+        // row_after(key, id, keyValue, idValue) -> (key, id) > (keyValue, idValue), a single range seek
+        // on a (key, id) index; row_before is the descending counterpart
+        functionContributions.getFunctionRegistry()
+                .registerPattern(ROW_AFTER, "((?1, ?2) > (?3, ?4))", booleanType);
+        functionContributions.getFunctionRegistry()
+                .registerPattern(ROW_BEFORE, "((?1, ?2) < (?3, ?4))", booleanType);
+    }
+}
@@ -4,15 +4,23 @@ import com.ecommerce.project.config.AppConstants;
 import com.ecommerce.project.exceptions.APIException;
 import com.ecommerce.project.payload.CODOrderRequestDTO;
 import com.ecommerce.project.payload.OrderDTO;
+import com.ecommerce.project.payload.OrderIntentDTO;
 import com.ecommerce.project.payload.OrderRequestDTO;
 import com.ecommerce.project.payload.OrderResponse;
+import com.ecommerce.project.service.CheckoutQueue;
+import com.ecommerce.project.service.IdempotencyStore;
 import com.ecommerce.project.service.OrderService;
 import com.ecommerce.project.util.AuthUtil;
+import com.ecommerce.project.util.ExportFormat;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -20,9 +28,17 @@ import java.util.List;
 @RequestMapping("/api")
 public class OrderController {
 
+    private static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
     @Autowired
     private OrderService orderService;
 
+    @Autowired
+    private IdempotencyStore idempotencyStore;
+
+    @Autowired
+    private CheckoutQueue checkoutQueue;
+
     @Autowired
     private AuthUtil authUtil;
 
@@ -31,7 +47,8 @@ public class OrderController {
 
     // Place order with Cash on Delivery (COD) payment method - Simplified endpoint
     @PostMapping("/order/users/cod")
-    public ResponseEntity<OrderDTO> orderProductsCOD(@Valid @RequestBody CODOrderRequestDTO codOrderRequestDTO) {
+    public ResponseEntity<OrderDTO> orderProductsCOD(@Valid @RequestBody CODOrderRequestDTO codOrderRequestDTO,
+                                                     @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
         String emailId = authUtil.loggedInEmail();
         System.out.println("COD Order Request - Address ID: " + codOrderRequestDTO.getAddressId());
 
@@ -43,21 +60,25 @@ public class OrderController {
         // Use CASH_ON_DELIVERY as payment method (meets 4+ character validation requirement)
         String paymentMethod = "CASH_ON_DELIVERY";
 
-        OrderDTO order = orderService.placeOrder(
-                emailId,
-                codOrderRequestDTO.getAddressId(),
-                paymentMethod,
-                "CASH_ON_DELIVERY", // pgName - Cash on Delivery
-                "COD_" + System.currentTimeMillis(), // pgPaymentId - Generate unique COD ID
-                "PENDING", // pgStatus - COD orders start as pending
-                "Cash on Delivery - Payment will be collected upon delivery"
-        );
+        // A retry carrying the same Idempotency-Key gets the original order back instead of a new one
+        OrderDTO order = idempotencyStore.placeOnce(emailId, idempotencyKey,
+                "COD|" + codOrderRequestDTO.getAddressId(),
+                () -> orderService.placeOrder(
+                        emailId,
+                        codOrderRequestDTO.getAddressId(),
+                        paymentMethod,
+                        "CASH_ON_DELIVERY", // pgName - Cash on Delivery
+                        "COD_" + System.currentTimeMillis(), // pgPaymentId - Generate unique COD ID
+                        "PENDING", // pgStatus - COD orders start as pending
+                        "Cash on Delivery - Payment will be collected upon delivery"
+                ));
         return new ResponseEntity<>(order, HttpStatus.CREATED);
     }
 
     // Place order with Cash on Delivery (COD) - Full DTO support for backward compatibility
     @PostMapping("/order/users/cod-full")
-    public ResponseEntity<OrderDTO> orderProductsCODFull(@RequestBody OrderRequestDTO orderRequestDTO) {
+    public ResponseEntity<OrderDTO> orderProductsCODFull(@RequestBody OrderRequestDTO orderRequestDTO,
+                                                         @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
         String emailId = authUtil.loggedInEmail();
         System.out.println("COD Order Request (Full DTO): " + orderRequestDTO);
 
@@ -69,21 +90,25 @@ public class OrderController {
         // Use CASH_ON_DELIVERY as payment method (meets 4+ character validation requirement)
         String paymentMethod = "CASH_ON_DELIVERY";
 
-        OrderDTO order = orderService.placeOrder(
-                emailId,
-                orderRequestDTO.getAddressId(),
-                paymentMethod,
-                "CASH_ON_DELIVERY", // pgName - Cash on Delivery
-                "COD_" + System.currentTimeMillis(), // pgPaymentId - Generate unique COD ID
-                "PENDING", // pgStatus - COD orders start as pending
-                "Cash on Delivery - Payment will be collected upon delivery"
-        );
+        // A retry carrying the same Idempotency-Key gets the original order back instead of a new one
+        OrderDTO order = idempotencyStore.placeOnce(emailId, idempotencyKey,
+                "COD|" + orderRequestDTO.getAddressId(),
+                () -> orderService.placeOrder(
+                        emailId,
+                        orderRequestDTO.getAddressId(),
+                        paymentMethod,
+                        "CASH_ON_DELIVERY", // pgName - Cash on Delivery
+                        "COD_" + System.currentTimeMillis(), // pgPaymentId - Generate unique COD ID
+                        "PENDING", // pgStatus - COD orders start as pending
+                        "Cash on Delivery - Payment will be collected upon delivery"
+                ));
         return new ResponseEntity<>(order, HttpStatus.CREATED);
     }
 
     // Legacy endpoint for backward compatibility (redirects to COD)
     @PostMapping("/order/users/payments/{paymentMethod}")
-    public ResponseEntity<OrderDTO> orderProducts(@PathVariable String paymentMethod, @RequestBody OrderRequestDTO orderRequestDTO) {
+    public ResponseEntity<OrderDTO> orderProducts(@PathVariable String paymentMethod, @RequestBody OrderRequestDTO orderRequestDTO,
+                                                  @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
         String emailId = authUtil.loggedInEmail();
         System.out.println("orderRequestDTO DATA: " + orderRequestDTO);
         System.out.println("Payment method '" + paymentMethod + "' redirected to CASH_ON_DELIVERY as card payment is not implemented");
@@ -96,28 +121,55 @@ public class OrderController {
         // Force CASH_ON_DELIVERY payment method regardless of what's passed (meets 4+ character validation)
         String actualPaymentMethod = "CASH_ON_DELIVERY";
 
-        OrderDTO order = orderService.placeOrder(
-                emailId,
-                orderRequestDTO.getAddressId(),
-                actualPaymentMethod,
-                "CASH_ON_DELIVERY", // pgName - Cash on Delivery
-                "COD_" + System.currentTimeMillis(), // pgPaymentId - Generate unique COD ID
-                "PENDING", // pgStatus - COD orders start as pending
-                "Cash on Delivery - Payment will be collected upon delivery"
-        );
+        // A retry carrying the same Idempotency-Key gets the original order back instead of a new one
+        OrderDTO order = idempotencyStore.placeOnce(emailId, idempotencyKey,
+                "COD|" + orderRequestDTO.getAddressId(),
+                () -> orderService.placeOrder(
+                        emailId,
+                        orderRequestDTO.getAddressId(),
+                        actualPaymentMethod,
+                        "CASH_ON_DELIVERY", // pgName - Cash on Delivery
+                        "COD_" + System.currentTimeMillis(), // pgPaymentId - Generate unique COD ID
+                        "PENDING", // pgStatus - COD orders start as pending
+                        "Cash on Delivery - Payment will be collected upon delivery"
+                ));
         return new ResponseEntity<>(order, HttpStatus.CREATED);
     }
 
+    // Queue a Cash on Delivery checkout; the order is placed in the background.
+    // Poll /order/users/intents/{reference} for the outcome.
+    @PostMapping("/order/users/cod/async")
+    public ResponseEntity<OrderIntentDTO> orderProductsCODAsync(@Valid @RequestBody CODOrderRequestDTO codOrderRequestDTO,
+                                                                @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
+        String emailId = authUtil.loggedInEmail();
+        // A retry carrying the same Idempotency-Key gets the original intent back instead of queuing a second checkout
+        OrderIntentDTO intent = checkoutQueue.enqueue(emailId, codOrderRequestDTO.getAddressId(), idempotencyKey);
+        return new ResponseEntity<>(intent, HttpStatus.ACCEPTED);
+    }
+
+    // Status of a queued checkout
+    @GetMapping("/order/users/intents/{reference}")
+    public ResponseEntity<OrderIntentDTO> getOrderIntent(@PathVariable String reference) {
+        String emailId = authUtil.loggedInEmail();
+        OrderIntentDTO intent = checkoutQueue.getStatus(emailId, reference);
+        return new ResponseEntity<>(intent, HttpStatus.OK);
+    }
+
     // Get user's orders with pagination
     @GetMapping("/user/orders")
     public ResponseEntity<OrderResponse> getUserOrders(
             @RequestParam(value = "pageNumber", defaultValue = "0", required = false) Integer pageNumber,
             @RequestParam(value = "pageSize", defaultValue = "10", required = false) Integer pageSize,
             @RequestParam(value = "sortBy", defaultValue = "orderDate", required = false) String sortBy,
-            @RequestParam(value = "sortOrder", defaultValue = "desc", required = false) String sortOrder) {
+            @RequestParam(value = "sortOrder", defaultValue = "desc", required = false) String sortOrder,
+            @RequestParam(value = "includeTotal", defaultValue = "true", required = false) Boolean includeTotal,
+            @RequestParam(value = "after", required = false) String after) {
 
         String email = authUtil.loggedInEmail();
-        OrderResponse orderResponse = orderService.getUserOrders(email, pageNumber, pageSize, sortBy, sortOrder);
+        // Any "after" parameter (even empty, for the first page) switches to keyset pagination, newest first
+        OrderResponse orderResponse = after != null
+                ? orderService.getUserOrdersAfter(email, after, pageSize)
+                : orderService.getUserOrders(email, pageNumber, pageSize, sortBy, sortOrder, includeTotal);
         return new ResponseEntity<>(orderResponse, HttpStatus.OK);
     }
 
@@ -129,6 +181,20 @@ public class OrderController {
         return new ResponseEntity<>(orders, HttpStatus.OK);
     }
 
+    // Stream all of the user's order lines as NDJSON or CSV without building the list in memory
+    @GetMapping("/user/orders/export")
+    public ResponseEntity<StreamingResponseBody> exportUserOrders(
+            @RequestParam(value = "format", defaultValue = "ndjson", required = false) String format) {
+        String email = authUtil.loggedInEmail();
+        ExportFormat exportFormat = ExportFormat.of(format);
+        StreamingResponseBody body = out -> orderService.exportUserOrders(email, exportFormat, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.contentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("orders." + exportFormat.extension()).build().toString())
+                .body(body);
+    }
+
     // Get user's orders by status
     @GetMapping("/user/orders/status/{orderStatus}")
     public ResponseEntity<OrderResponse> getUserOrdersByStatus(
@@ -1,18 +1,26 @@
 package com.ecommerce.project.controller;
 
 import com.ecommerce.project.config.AppConstants;
+import com.ecommerce.project.payload.ProductBatchResponse;
 import com.ecommerce.project.payload.ProductDTO;
 import com.ecommerce.project.payload.ProductResponse;
+import com.ecommerce.project.service.CartRepricer;
+import com.ecommerce.project.service.HotInventory;
+import com.ecommerce.project.service.ProductCache;
 import com.ecommerce.project.service.ProductService;
 import com.ecommerce.project.util.AuthUtil;
+import com.ecommerce.project.util.ExportFormat;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.IOException;
 import java.util.List;
@@ -107,16 +115,50 @@ public class ProductController {
         return ResponseEntity.ok("Authenticated as: " + auth.getName());
     }
 
+    @GetMapping("/admin/products/cache/stats")
+    public ResponseEntity<ProductCache.Stats> getProductCacheStats() {
+        return new ResponseEntity<>(productService.getProductCacheStats(), HttpStatus.OK);
+    }
+
+    @GetMapping("/admin/products/cart-repricing/stats")
+    public ResponseEntity<CartRepricer.Stats> getCartRepricingStats() {
+        return new ResponseEntity<>(productService.getCartRepricingStats(), HttpStatus.OK);
+    }
+
+    @GetMapping("/admin/products/{productId}/hot-inventory")
+    public ResponseEntity<HotInventory.Status> getHotInventory(@PathVariable Long productId) {
+        return new ResponseEntity<>(productService.getHotInventory(productId), HttpStatus.OK);
+    }
+
+    @PutMapping("/admin/products/{productId}/hot-inventory")
+    public ResponseEntity<HotInventory.Status> enableHotInventory(@PathVariable Long productId) {
+        return new ResponseEntity<>(productService.setHotInventory(productId, true), HttpStatus.OK);
+    }
+
+    @DeleteMapping("/admin/products/{productId}/hot-inventory")
+    public ResponseEntity<HotInventory.Status> disableHotInventory(@PathVariable Long productId) {
+        return new ResponseEntity<>(productService.setHotInventory(productId, false), HttpStatus.OK);
+    }
+
     @GetMapping("/public/products")
     public ResponseEntity<ProductResponse> getAllProducts(
             @RequestParam(name = "keyword", required = false) String keyword,
             @RequestParam(name = "category", required = false) String category,
             @RequestParam(name = "pageNumber", defaultValue = AppConstants.PAGE_NUMBER, required = false) Integer pageNumber,
             @RequestParam(name = "pageSize", defaultValue = AppConstants.PAGE_SIZE, required = false) Integer pageSize,
-            @RequestParam(name = "sortBy", defaultValue = AppConstants.SORT_PRODUCTS_BY, required = false) String sortBy,
-            @RequestParam(name = "sortOrder", defaultValue = AppConstants.SORT_DIR, required = false) String sortOrder
+            @RequestParam(name = "sortBy", required = false) String sortBy,
+            @RequestParam(name = "sortOrder", defaultValue = AppConstants.SORT_DIR, required = false) String sortOrder,
+            @RequestParam(name = "after", required = false) String after,
+            @RequestParam(name = "includeTotal", defaultValue = "true", required = false) Boolean includeTotal
     ){
-        ProductResponse productResponse = productService.getAllProducts(pageNumber, pageSize, sortBy, sortOrder, keyword, category);
+        // Keyword searches are ranked unless the client picks an order
+        if (sortBy == null) {
+            sortBy = keyword != null && !keyword.isBlank() ? AppConstants.SORT_BY_RELEVANCE : AppConstants.SORT_PRODUCTS_BY;
+        }
+        // Any "after" parameter (even empty, for the first page) switches to keyset pagination
+        ProductResponse productResponse = after != null
+                ? productService.getAllProductsAfter(after, pageSize, sortBy, sortOrder, keyword, category)
+                : productService.getAllProducts(pageNumber, pageSize, sortBy, sortOrder, keyword, category, includeTotal);
         return new ResponseEntity<>(productResponse,HttpStatus.OK);
     }
 
@@ -134,12 +176,30 @@ public class ProductController {
     public ResponseEntity<ProductResponse> getProductsByKeyword(@PathVariable String keyword,
                                                                 @RequestParam(name = "pageNumber", defaultValue = AppConstants.PAGE_NUMBER, required = false) Integer pageNumber,
                                                                 @RequestParam(name = "pageSize", defaultValue = AppConstants.PAGE_SIZE, required = false) Integer pageSize,
-                                                                @RequestParam(name = "sortBy", defaultValue = AppConstants.SORT_PRODUCTS_BY, required = false) String sortBy,
+                                                                @RequestParam(name = "sortBy", defaultValue = AppConstants.SORT_BY_RELEVANCE, required = false) String sortBy,
                                                                 @RequestParam(name = "sortOrder", defaultValue = AppConstants.SORT_DIR, required = false) String sortOrder){
         ProductResponse productResponse = productService.searchProductByKeyword(keyword, pageNumber, pageSize, sortBy, sortOrder);
         return new ResponseEntity<>(productResponse, HttpStatus.FOUND);
     }
 
+    // Several products by ID in one round-trip (wishlist, recently viewed, cart sidebar)
+    @GetMapping("/public/products/batch")
+    public ResponseEntity<ProductBatchResponse> getProductsByIds(@RequestParam(name = "ids") List<Long> ids) {
+        ProductBatchResponse batchResponse = productService.getProductsByIds(ids);
+        return new ResponseEntity<>(batchResponse, HttpStatus.OK);
+    }
+
+    // Ranked search served from the in-memory index (operator = AND | OR)
+    @GetMapping("/public/products/search")
+    public ResponseEntity<ProductResponse> searchProducts(@RequestParam(name = "query") String query,
+                                                          @RequestParam(name = "operator", defaultValue = "AND", required = false) String operator,
+                                                          @RequestParam(name = "category", required = false) String category,
+                                                          @RequestParam(name = "pageNumber", defaultValue = AppConstants.PAGE_NUMBER, required = false) Integer pageNumber,
+                                                          @RequestParam(name = "pageSize", defaultValue = AppConstants.PAGE_SIZE, required = false) Integer pageSize){
+        ProductResponse productResponse = productService.searchProductIndex(query, operator, category, pageNumber, pageSize);
+        return new ResponseEntity<>(productResponse, HttpStatus.OK);
+    }
+
     @PutMapping("/user/products/{productId}")
     public ResponseEntity<ProductDTO> updateProduct(@Valid @RequestBody ProductDTO productDTO,
                                                     @PathVariable Long productId){
@@ -232,10 +292,11 @@ public class ProductController {
             @RequestParam(value = "pageNumber", defaultValue = AppConstants.PAGE_NUMBER, required = false) Integer pageNumber,
             @RequestParam(value = "pageSize", defaultValue = AppConstants.PAGE_SIZE, required = false) Integer pageSize,
             @RequestParam(value = "sortBy", defaultValue = AppConstants.SORT_PRODUCTS_BY, required = false) String sortBy,
-            @RequestParam(value = "sortOrder", defaultValue = AppConstants.SORT_DIR, required = false) String sortOrder) {
+            @RequestParam(value = "sortOrder", defaultValue = AppConstants.SORT_DIR, required = false) String sortOrder,
+            @RequestParam(value = "includeTotal", defaultValue = "true", required = false) Boolean includeTotal) {
 
         String email = authUtil.loggedInEmail();
-        ProductResponse productResponse = productService.getUserProducts(email, pageNumber, pageSize, sortBy, sortOrder);
+        ProductResponse productResponse = productService.getUserProducts(email, pageNumber, pageSize, sortBy, sortOrder, includeTotal);
         return new ResponseEntity<>(productResponse, HttpStatus.OK);
     }
 
@@ -247,6 +308,20 @@ public class ProductController {
         return new ResponseEntity<>(products, HttpStatus.OK);
     }
 
+    // Stream all of the user's products as NDJSON or CSV without building the list in memory
+    @GetMapping("/user/products/export")
+    public ResponseEntity<StreamingResponseBody> exportUserProducts(
+            @RequestParam(value = "format", defaultValue = "ndjson", required = false) String format) {
+        String email = authUtil.loggedInEmail();
+        ExportFormat exportFormat = ExportFormat.of(format);
+        StreamingResponseBody body = out -> productService.exportUserProducts(email, exportFormat, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.contentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("products." + exportFormat.extension()).build().toString())
+                .body(body);
+    }
+
     // Get count of user's products
     @GetMapping("/user/products/count")
     public ResponseEntity<Long> getUserProductsCount() {
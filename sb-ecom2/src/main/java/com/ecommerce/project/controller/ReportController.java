@@ -0,0 +1,59 @@
+package com.ecommerce.project.controller;
+
+import com.ecommerce.project.payload.APIResponse;
+import com.ecommerce.project.payload.SalesReportDTO;
+import com.ecommerce.project.service.ReportService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/admin/reports")
+public class ReportController {
+
+    @Autowired
+    private ReportService reportService;
+
+    // Daily sales; defaults to the last 30 days
+    @GetMapping("/sales/daily")
+    public ResponseEntity<List<SalesReportDTO>> getDailySales(
+            @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(value = "sellerId", required = false) Long sellerId,
+            @RequestParam(value = "categoryId", required = false) Long categoryId) {
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start = from != null ? from : end.minusDays(29);
+        return new ResponseEntity<>(reportService.getDailySales(start, end, sellerId, categoryId), HttpStatus.OK);
+    }
+
+    @GetMapping("/sales/sellers")
+    public ResponseEntity<List<SalesReportDTO>> getSalesBySeller(
+            @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start = from != null ? from : end.minusDays(29);
+        return new ResponseEntity<>(reportService.getSalesBySeller(start, end), HttpStatus.OK);
+    }
+
+    @GetMapping("/sales/categories")
+    public ResponseEntity<List<SalesReportDTO>> getSalesByCategory(
+            @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start = from != null ? from : end.minusDays(29);
+        return new ResponseEntity<>(reportService.getSalesByCategory(start, end), HttpStatus.OK);
+    }
+
+    // Rebuild the rollups of a date range from the orders, e.g. after correcting order data
+    @PostMapping("/sales/reconcile")
+    public ResponseEntity<APIResponse> reconcileSales(
+            @RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return new ResponseEntity<>(reportService.reconcileSales(from, to), HttpStatus.OK);
+    }
+}
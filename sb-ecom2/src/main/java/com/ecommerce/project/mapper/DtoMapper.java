@@ -0,0 +1,123 @@
+package com.ecommerce.project.mapper;
+
+import com.ecommerce.project.model.Address;
+import com.ecommerce.project.model.Cart;
+import com.ecommerce.project.model.Category;
+import com.ecommerce.project.model.Order;
+import com.ecommerce.project.model.OrderItem;
+import com.ecommerce.project.model.Payment;
+import com.ecommerce.project.model.Product;
+import com.ecommerce.project.payload.AddressDTO;
+import com.ecommerce.project.payload.CartDTO;
+import com.ecommerce.project.payload.CategoryDTO;
+import com.ecommerce.project.payload.OrderDTO;
+import com.ecommerce.project.payload.OrderItemDTO;
+import com.ecommerce.project.payload.PaymentDTO;
+import com.ecommerce.project.payload.ProductDTO;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Plain field-by-field mapping between entities and DTOs. Replaces the reflective ModelMapper
+ * on every service path; keep it in step with the DTO classes when fields are added.
+ * Like the old ModelMapper setup, DTO -> entity copies skip null values and never touch
+ * ids or relationships.
+ */
+@Component
+public class DtoMapper {
+
+    public ProductDTO toProductDTO(Product product) {
+        return new ProductDTO(product.getProductId(), product.getProductName(), product.getImage(),
+                product.getDescription(), product.getQuantity(), product.getPrice(),
+                product.getDiscount(), product.getSpecialPrice());
+    }
+
+    public Product toProduct(ProductDTO productDTO) {
+        Product product = new Product();
+        copyProduct(productDTO, product);
+        return product;
+    }
+
+    // Copies the editable fields of a ProductDTO onto an existing product
+    public void copyProduct(ProductDTO productDTO, Product product) {
+        if (productDTO.getProductName() != null) {
+            product.setProductName(productDTO.getProductName());
+        }
+        if (productDTO.getImage() != null) {
+            product.setImage(productDTO.getImage());
+        }
+        if (productDTO.getDescription() != null) {
+            product.setDescription(productDTO.getDescription());
+        }
+        if (productDTO.getQuantity() != null) {
+            product.setQuantity(productDTO.getQuantity());
+        }
+        product.setPrice(productDTO.getPrice());
+        product.setDiscount(productDTO.getDiscount());
+        product.setSpecialPrice(productDTO.getSpecialPrice());
+    }
+
+    public CategoryDTO toCategoryDTO(Category category) {
+        return new CategoryDTO(category.getCategoryId(), category.getCategoryName());
+    }
+
+    public Category toCategory(CategoryDTO categoryDTO) {
+        Category category = new Category();
+        category.setCategoryId(categoryDTO.getCategoryId());
+        category.setCategoryName(categoryDTO.getCategoryName());
+        return category;
+    }
+
+    public AddressDTO toAddressDTO(Address address) {
+        return new AddressDTO(address.getAddressId(), address.getStreet(), address.getBuildingName(),
+                address.getCity(), address.getState(), address.getCountry(), address.getPincode());
+    }
+
+    public Address toAddress(AddressDTO addressDTO) {
+        Address address = new Address(addressDTO.getStreet(), addressDTO.getBuildingName(), addressDTO.getCity(),
+                addressDTO.getState(), addressDTO.getCountry(), addressDTO.getPincode());
+        address.setAddressId(addressDTO.getAddressId());
+        return address;
+    }
+
+    public PaymentDTO toPaymentDTO(Payment payment) {
+        return new PaymentDTO(payment.getPaymentId(), payment.getPaymentMethod(), payment.getPgPaymentId(),
+                payment.getPgStatus(), payment.getPgResponseMessage(), payment.getPgName());
+    }
+
+    public OrderItemDTO toOrderItemDTO(OrderItem orderItem) {
+        return new OrderItemDTO(orderItem.getOrderItemId(),
+                orderItem.getProduct() != null ? toProductDTO(orderItem.getProduct()) : null,
+                orderItem.getQuantity(), orderItem.getDiscount(), orderItem.getOrderedProductPrice());
+    }
+
+    // The returned orderItems list is mutable so callers can append freshly saved items
+    public OrderDTO toOrderDTO(Order order) {
+        List<OrderItemDTO> orderItems = new ArrayList<>(order.getOrderItems().size());
+        order.getOrderItems().forEach(item -> orderItems.add(toOrderItemDTO(item)));
+
+        OrderDTO orderDTO = new OrderDTO();
+        orderDTO.setOrderId(order.getOrderId());
+        orderDTO.setEmail(order.getEmail());
+        orderDTO.setOrderItems(orderItems);
+        orderDTO.setOrderDate(order.getOrderDate());
+        orderDTO.setPayment(order.getPayment() != null ? toPaymentDTO(order.getPayment()) : null);
+        orderDTO.setTotalAmount(order.getTotalAmount());
+        orderDTO.setOrderStatus(order.getOrderStatus());
+        if (order.getAddress() != null) {
+            orderDTO.setAddressId(order.getAddress().getAddressId());
+            orderDTO.setAddress(toAddressDTO(order.getAddress()));
+        }
+        return orderDTO;
+    }
+
+    // Only cart-level fields; callers fill in products from the cart items
+    public CartDTO toCartDTO(Cart cart) {
+        CartDTO cartDTO = new CartDTO();
+        cartDTO.setCartId(cart.getCartId());
+        cartDTO.setTotalPrice(cart.getTotalPrice());
+        return cartDTO;
+    }
+}
@@ -45,7 +45,7 @@ public class Address {
     @Size(min = 5, message = "Pincode must be atleast 5 characters")
     private String pincode;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id")
     private User user;
 
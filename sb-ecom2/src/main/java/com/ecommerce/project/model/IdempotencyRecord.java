@@ -0,0 +1,38 @@
+package com.ecommerce.project.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "idempotency_keys",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"email", "idempotency_key"}))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class IdempotencyRecord {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long recordId;
+
+    @Column(nullable = false)
+    private String email;
+
+    @Column(name = "idempotency_key", nullable = false)
+    private String idempotencyKey;
+
+    // Identifies the request the key was first used with, so reuse for a different request is rejected
+    @Column(nullable = false)
+    private String requestFingerprint;
+
+    // The OrderDTO returned to the first request, as JSON
+    @Column(nullable = false, columnDefinition = "text")
+    private String response;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+}
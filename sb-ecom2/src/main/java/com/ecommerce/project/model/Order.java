@@ -17,8 +17,10 @@ import java.util.List;
 @AllArgsConstructor
 public class Order {
 
+    // Sequence-allocated in blocks of 50 (like OrderItem, CartItem and Payment) so Hibernate can batch the inserts
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "orders_seq")
+    @SequenceGenerator(name = "orders_seq", sequenceName = "orders_seq", allocationSize = 50)
     private Long orderId;
 
     @Email
@@ -28,9 +30,11 @@ public class Order {
     @OneToMany(mappedBy = "order", cascade = { CascadeType.PERSIST, CascadeType.MERGE })
     private List<OrderItem> orderItems = new ArrayList<>();
 
+    // Partition key of orders and order_items
+    @Column(nullable = false)
     private LocalDate orderDate;
 
-    @OneToOne
+    @OneToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "payment_id")
     private Payment payment;
 
@@ -38,7 +42,11 @@ public class Order {
     private String orderStatus;
 
     // Reference to Address
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "address_id")
     private Address address;
+
+    // Copied from address.user when the order is placed, so history by user needs no join
+    @Column(name = "user_id")
+    private Long userId;
 }
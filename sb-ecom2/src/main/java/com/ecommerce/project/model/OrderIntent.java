@@ -0,0 +1,56 @@
+package com.ecommerce.project.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// A checkout accepted by the async endpoint and waiting to be turned into an order (outbox row)
+@Entity
+@Table(name = "order_intents",
+        indexes = @Index(name = "idx_order_intents_status_id", columnList = "status, intentId"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderIntent {
+
+    public static final String PENDING = "PENDING";
+    public static final String PROCESSING = "PROCESSING";
+    public static final String COMPLETED = "COMPLETED";
+    public static final String FAILED = "FAILED";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long intentId;
+
+    // Handed to the client to poll with; the numeric id is not exposed
+    @Column(nullable = false, unique = true)
+    private String reference;
+
+    @Column(nullable = false)
+    private String email;
+
+    @Column(nullable = false)
+    private Long addressId;
+
+    // The client's Idempotency-Key, if it sent one; unique per email (schema.sql)
+    @Column(name = "idempotency_key")
+    private String idempotencyKey;
+
+    @Column(nullable = false)
+    private String status;
+
+    private Long orderId;
+
+    private String failureReason;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    private LocalDateTime processedAt;
+
+    // When an instance claimed the intent for processing; a stale claim is taken over by another instance
+    private LocalDateTime claimedAt;
+}
@@ -16,4 +16,6 @@ public class CategoryResponse {
     private Long totalElements;
     private Integer totalPages;
     private boolean lastPage;
+    // False when totalElements is an estimate or a briefly cached count; null when totals were not requested
+    private Boolean totalExact;
 }
@@ -0,0 +1,24 @@
+package com.ecommerce.project.payload;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+// One exported order line; order-level columns repeat on every line of the order
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderExportRow {
+    private Long orderId;
+    private LocalDate orderDate;
+    private String orderStatus;
+    private Double totalAmount;
+    private String paymentMethod;
+    private Long productId;
+    private String productName;
+    private Integer quantity;
+    private double orderedProductPrice;
+    private double discount;
+}
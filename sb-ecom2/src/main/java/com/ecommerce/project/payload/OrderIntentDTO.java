@@ -0,0 +1,18 @@
+package com.ecommerce.project.payload;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderIntentDTO {
+    private String reference;
+    // PENDING, COMPLETED or FAILED
+    private String status;
+    // Set once the order has been placed
+    private Long orderId;
+    // Set when the checkout could not be completed
+    private String failureReason;
+}
@@ -0,0 +1,17 @@
+package com.ecommerce.project.payload;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductBatchResponse {
+    // Found products, in the order their IDs were requested
+    private List<ProductDTO> content;
+    // Requested IDs that matched no product
+    private List<Long> missingIds;
+}
@@ -9,6 +9,19 @@ import jakarta.validation.constraints.DecimalMin;
 public class ProductDTO {
     public ProductDTO() { }        // ← explicit PUBLIC no-arg ctor
 
+    // Used by JPQL/criteria constructor projections in ProductRepository
+    public ProductDTO(Long productId, String productName, String image, String description,
+                      Integer quantity, double price, double discount, double specialPrice) {
+        this.productId = productId;
+        this.productName = productName;
+        this.image = image;
+        this.description = description;
+        this.quantity = quantity;
+        this.price = price;
+        this.discount = discount;
+        this.specialPrice = specialPrice;
+    }
+
     private Long   productId;
 
     @NotBlank(message = "Product name is required")
@@ -16,4 +16,8 @@ public class ProductResponse {
     private Long totalElements;
     private Integer totalPages;
     private boolean lastPage;
+    // False when totalElements is an estimate or a briefly cached count; null when totals were not requested
+    private Boolean totalExact;
+    // Set only by cursor-paginated listings; pass back as "after" to fetch the next page
+    private String nextCursor;
 }
@@ -0,0 +1,21 @@
+package com.ecommerce.project.payload;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SalesReportDTO {
+    // Only the grouping columns of the report are set; the others are null
+    private LocalDate salesDate;
+    private Long sellerId;
+    private Long categoryId;
+    private Long units;
+    private Double revenue;
+    // Orders are counted once per seller and category they contain, so sums across groups can exceed the order total
+    private Long orderCount;
+}
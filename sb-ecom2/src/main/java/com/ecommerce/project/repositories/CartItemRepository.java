@@ -5,15 +5,45 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 
+import java.util.List;
+
 public interface CartItemRepository extends JpaRepository<CartItem, Long> {
     @Query("SELECT ci FROM CartItem ci WHERE ci.cart.id = ?1 AND ci.product.id = ?2")
     CartItem findCartItemByProductIdAndCartId(Long cartId, Long productId);
 
     @Modifying
     @Query("DELETE FROM CartItem ci WHERE ci.cart.id = ?1 AND ci.product.id = ?2")
-    void deleteCartItemByProductIdAndCartId(Long cartId, Long productId);
+    int deleteCartItemByProductIdAndCartId(Long cartId, Long productId);
 
     @Modifying
     @Query("DELETE FROM CartItem ci WHERE ci.cart.id = ?1")
     void deleteAllByCartId(Long cartId);
+
+    // Deletes every line of the product; returns the cart of each deleted line
+    @Query(value = "DELETE FROM cart_items WHERE product_id = ?1 RETURNING cart_id", nativeQuery = true)
+    List<Long> deleteAllByProductId(Long productId);
+
+    // Whether the user's cart has any line, without loading the cart
+    boolean existsByCartUserEmail(String email);
+
+    // Lines only; the cart comes along in the same statement instead of an eager follow-up select
+    @Query("SELECT ci FROM CartItem ci JOIN FETCH ci.cart WHERE ci.cart.id = ?1")
+    List<CartItem> findAllByCartId(Long cartId);
+
+    // Adds a new line; returns null if the cart already has one for the product (uq_cart_items_cart_product)
+    @Query(value = "INSERT INTO cart_items (cart_item_id, cart_id, product_id, quantity, discount, product_price) "
+            + "VALUES (nextval('cart_items_seq'), ?1, ?2, ?3, ?4, ?5) "
+            + "ON CONFLICT (cart_id, product_id) DO NOTHING RETURNING quantity", nativeQuery = true)
+    Integer insertLine(Long cartId, Long productId, int quantity, double discount, double productPrice);
+
+    // Changes the quantity of an existing line by a positive or negative amount, never below zero;
+    // returns the new quantity, or null if there is no line or not enough on it
+    @Query(value = "UPDATE cart_items SET quantity = quantity + ?3, discount = ?4, product_price = ?5 "
+            + "WHERE cart_id = ?1 AND product_id = ?2 AND quantity + ?3 >= 0 "
+            + "RETURNING quantity", nativeQuery = true)
+    Integer changeLineQuantity(Long cartId, Long productId, int quantity, double discount, double productPrice);
+
+    @Modifying
+    @Query(value = "DELETE FROM cart_items WHERE cart_id = ?1 AND product_id = ?2 AND quantity = 0", nativeQuery = true)
+    void deleteEmptyLine(Long cartId, Long productId);
 }
@@ -2,17 +2,59 @@ package com.ecommerce.project.repositories;
 
 import com.ecommerce.project.model.Cart;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 
 import java.util.List;
+import java.util.Optional;
 
 public interface CartRepository extends JpaRepository<Cart, Long> {
+
+    // The cart aggregate: cart, items and each item's product (with its eager category) in one statement.
+    // Cart operations load through these so walking cart.getCartItems() -> getProduct() never queries again.
+    String CART_WITH_ITEMS = "SELECT c FROM Cart c LEFT JOIN FETCH c.cartItems ci "
+            + "LEFT JOIN FETCH ci.product p LEFT JOIN FETCH p.category ";
+
     @Query("SELECT c FROM Cart c WHERE c.user.email = ?1")
     Cart findCartByEmail(String email);
 
-    @Query("SELECT c FROM Cart c WHERE c.user.email = ?1 AND c.id = ?2")
-    Cart findCartByEmailAndCartId(String emailId, Long cartId);
+    @Query("SELECT c.cartId FROM Cart c WHERE c.user.email = ?1")
+    Long findCartIdByEmail(String email);
+
+    // Locks the user's cart lines until the transaction ends. Lines a concurrent checkout deleted
+    // while this waited are not returned.
+    @Query(value = "SELECT ci.cart_item_id FROM cart_items ci JOIN carts c ON c.cart_id = ci.cart_id "
+            + "JOIN users u ON u.user_id = c.user_id WHERE u.email = ?1 FOR UPDATE OF ci", nativeQuery = true)
+    List<Long> lockCartItemsByEmail(String email);
+
+    // Locks the user's cart row until the transaction ends. Take it after the lines, the order
+    // every cart write path locks in.
+    @Query(value = "SELECT c.cart_id FROM carts c JOIN users u ON u.user_id = c.user_id "
+            + "WHERE u.email = ?1 FOR UPDATE OF c", nativeQuery = true)
+    Long lockCartByEmail(String email);
+
+    // Sets total_price from the cart's lines in one statement. Clears the persistence context, so
+    // the cart has to be read again afterwards.
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "UPDATE carts SET total_price = (SELECT COALESCE(SUM(ci.product_price * ci.quantity), 0) "
+            + "FROM cart_items ci WHERE ci.cart_id = ?1) WHERE cart_id = ?1", nativeQuery = true)
+    void recomputeTotalPrice(Long cartId);
+
+    @Query(CART_WITH_ITEMS + "WHERE c.user.email = ?1")
+    Cart findCartWithItemsByEmail(String email);
+
+    @Query(CART_WITH_ITEMS + "WHERE c.user.email = ?1 AND c.cartId = ?2")
+    Cart findCartWithItemsByEmailAndCartId(String emailId, Long cartId);
+
+    @Query(CART_WITH_ITEMS + "WHERE c.cartId = ?1")
+    Optional<Cart> findCartWithItemsById(Long cartId);
+
+    @Query(CART_WITH_ITEMS)
+    List<Cart> findAllWithItems();
 
-    @Query("SELECT c FROM Cart c JOIN FETCH c.cartItems ci JOIN FETCH ci.product p WHERE p.id = ?1")
-    List<Cart> findCartsByProductId(Long productId);
+    // recomputeTotalPrice for many carts in one statement
+    @Modifying
+    @Query(value = "UPDATE carts c SET total_price = (SELECT COALESCE(SUM(ci.product_price * ci.quantity), 0) "
+            + "FROM cart_items ci WHERE ci.cart_id = c.cart_id) WHERE c.cart_id = ANY (?1)", nativeQuery = true)
+    int recomputeTotalPrices(Long[] cartIds);
 }
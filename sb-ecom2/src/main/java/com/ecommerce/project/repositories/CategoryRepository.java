@@ -1,8 +1,13 @@
 package com.ecommerce.project.repositories;
 
 import com.ecommerce.project.model.Category;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 
 public interface CategoryRepository extends JpaRepository<Category,Long> {
     Category findByCategoryName(String categoryName);
+
+    // All categories as a slice (no COUNT query)
+    Slice<Category> findAllBy(Pageable pageable);
 }
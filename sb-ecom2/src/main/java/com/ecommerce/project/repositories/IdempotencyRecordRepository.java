@@ -0,0 +1,18 @@
+package com.ecommerce.project.repositories;
+
+import com.ecommerce.project.model.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.LocalDateTime;
+
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, Long> {
+
+    IdempotencyRecord findByEmailAndIdempotencyKey(String email, String idempotencyKey);
+
+    // Expire keys older than the retention window
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.createdAt < ?1")
+    int deleteByCreatedAtBefore(LocalDateTime cutoff);
+}
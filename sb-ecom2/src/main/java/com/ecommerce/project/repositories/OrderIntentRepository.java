@@ -0,0 +1,29 @@
+package com.ecommerce.project.repositories;
+
+import com.ecommerce.project.model.OrderIntent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
+
+public interface OrderIntentRepository extends JpaRepository<OrderIntent, Long> {
+
+    OrderIntent findByReferenceAndEmail(String reference, String email);
+
+    OrderIntent findByEmailAndIdempotencyKey(String email, String idempotencyKey);
+
+    // Claims the oldest pending intents, plus any claimed more than claimTimeoutMs ago (the claiming
+    // instance died), in one statement. Rows another instance is claiming are skipped,
+    // so every returned id belongs to this caller alone.
+    @Query(value = "UPDATE order_intents SET status = 'PROCESSING', claimed_at = now() WHERE intent_id IN ("
+            + "SELECT intent_id FROM order_intents "
+            + "WHERE status = 'PENDING' OR (status = 'PROCESSING' AND claimed_at < now() - ?2 * interval '1 millisecond') "
+            + "ORDER BY intent_id LIMIT ?1 FOR UPDATE SKIP LOCKED) "
+            + "RETURNING intent_id", nativeQuery = true)
+    List<Long> claimBatch(int limit, long claimTimeoutMs);
+
+    // Locks one claimed intent for the duration of the worker's transaction; skips it if another worker holds it
+    @Query(value = "SELECT * FROM order_intents WHERE intent_id = ?1 AND status = 'PROCESSING' FOR UPDATE SKIP LOCKED",
+            nativeQuery = true)
+    OrderIntent lockClaimed(Long intentId);
+}
@@ -1,39 +1,96 @@
 package com.ecommerce.project.repositories;
 
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import com.ecommerce.project.model.Order;
+import com.ecommerce.project.payload.OrderExportRow;
 
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
+// orders and order_items are partitioned by order date; every query carries a date bound
+// ("since", normally OrderPartitions.onlineSince()) so the planner can prune partitions
 @Repository
 public interface OrderRepository extends JpaRepository<Order, Long> {
 
-    // Find orders by user email with pagination
-    Page<Order> findByEmailOrderByOrderDateDesc(String email, Pageable pageable);
+    // Identifies an order together with its partition key
+    interface OrderKey {
+        Long getOrderId();
+
+        LocalDate getOrderDate();
+    }
+
+    // Loads orders with everything OrderDTO needs (address, payment, items and their products) in one query.
+    // Only o.orderDate may be bounded: a predicate on the fetched items would drop orders without items and
+    // leave partially filled collections; order_items are reached through idx_order_items_order instead.
+    String ORDER_DETAILS = "SELECT o FROM Order o LEFT JOIN FETCH o.address a LEFT JOIN FETCH o.payment "
+            + "LEFT JOIN FETCH o.orderItems oi LEFT JOIN FETCH oi.product p LEFT JOIN FETCH p.category ";
+
+    // Paged history is two-phase: page over order keys only, then hydrate the page with this query,
+    // bounded by the page's own date range. Fetch-joining the items in the paged query itself would make
+    // Hibernate paginate in memory. Order is restored by the caller.
+    @Query(ORDER_DETAILS + "WHERE o.orderId IN ?1 AND o.orderDate BETWEEN ?2 AND ?3")
+    List<Order> findWithDetailsByOrderIdIn(Collection<Long> orderIds, LocalDate from, LocalDate to);
+
+    // Find order keys by user email as a slice (no COUNT query)
+    @Query("SELECT o.orderId AS orderId, o.orderDate AS orderDate FROM Order o WHERE o.email = ?1 AND o.orderDate >= ?2")
+    Slice<OrderKey> findKeySliceByEmail(String email, LocalDate since, Pageable pageable);
+
+    // Count orders by user email
+    long countByEmailAndOrderDateGreaterThanEqual(String email, LocalDate since);
+
+    // Keyset page of order keys by user email, newest first; the row comparison seeks on idx_orders_email_date
+    @Query(value = "SELECT order_id AS \"orderId\", order_date AS \"orderDate\" FROM orders "
+            + "WHERE email = ?1 AND order_date >= ?2 ORDER BY order_date DESC, order_id DESC LIMIT ?3", nativeQuery = true)
+    List<OrderKey> findFirstKeysByEmail(String email, LocalDate since, int limit);
+
+    @Query(value = "SELECT order_id AS \"orderId\", order_date AS \"orderDate\" FROM orders "
+            + "WHERE email = ?1 AND order_date >= ?2 AND (order_date, order_id) < (?3, ?4) "
+            + "ORDER BY order_date DESC, order_id DESC LIMIT ?5", nativeQuery = true)
+    List<OrderKey> findKeysByEmailAfter(String email, LocalDate since, LocalDate orderDate, Long orderId, int limit);
 
     // Find orders by user email without pagination
-    List<Order> findByEmailOrderByOrderDateDesc(String email);
+    @Query(ORDER_DETAILS + "WHERE o.email = ?1 AND o.orderDate >= ?2 ORDER BY o.orderDate DESC")
+    List<Order> findByEmailOrderByOrderDateDesc(String email, LocalDate since);
+
+    // Export of a user's order lines, oldest first, streamed in fetch-size chunks; must be consumed inside a transaction
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT new com.ecommerce.project.payload.OrderExportRow(o.orderId, o.orderDate, o.orderStatus, o.totalAmount, "
+            + "pay.paymentMethod, p.productId, p.productName, oi.quantity, oi.orderedProductPrice, oi.discount) "
+            + "FROM Order o JOIN o.orderItems oi LEFT JOIN oi.product p LEFT JOIN o.payment pay "
+            + "WHERE o.email = ?1 AND o.orderDate >= ?2 AND oi.orderDate >= ?2 ORDER BY o.orderDate, o.orderId, oi.orderItemId")
+    Stream<OrderExportRow> streamExportRowsByEmail(String email, LocalDate since);
 
-    // Find orders by user email and order status
-    @Query("SELECT o FROM Order o WHERE o.email = ?1 AND o.orderStatus = ?2 ORDER BY o.orderDate DESC")
-    Page<Order> findByEmailAndOrderStatus(String email, String orderStatus, Pageable pageable);
+    // Find order keys by user email and order status
+    @Query(value = "SELECT o.orderId AS orderId, o.orderDate AS orderDate FROM Order o "
+            + "WHERE o.email = ?1 AND o.orderStatus = ?2 AND o.orderDate >= ?3",
+            countQuery = "SELECT COUNT(o) FROM Order o WHERE o.email = ?1 AND o.orderStatus = ?2 AND o.orderDate >= ?3")
+    Page<OrderKey> findKeysByEmailAndOrderStatus(String email, String orderStatus, LocalDate since, Pageable pageable);
 
-    // Find orders by user ID with pagination
-    @Query("SELECT o FROM Order o JOIN o.address a JOIN a.user u WHERE u.userId = ?1 ORDER BY o.orderDate DESC")
-    Page<Order> findByUserIdOrderByOrderDateDesc(Long userId, Pageable pageable);
+    // Find order keys by user ID with pagination
+    @Query(value = "SELECT o.orderId AS orderId, o.orderDate AS orderDate FROM Order o WHERE o.userId = ?1 AND o.orderDate >= ?2",
+            countQuery = "SELECT COUNT(o) FROM Order o WHERE o.userId = ?1 AND o.orderDate >= ?2")
+    Page<OrderKey> findKeysByUserId(Long userId, LocalDate since, Pageable pageable);
 
     // Find orders by user ID without pagination
-    @Query("SELECT o FROM Order o JOIN o.address a JOIN a.user u WHERE u.userId = ?1 ORDER BY o.orderDate DESC")
-    List<Order> findByUserIdOrderByOrderDateDesc(Long userId);
+    @Query(ORDER_DETAILS + "WHERE o.userId = ?1 AND o.orderDate >= ?2 ORDER BY o.orderDate DESC")
+    List<Order> findByUserIdOrderByOrderDateDesc(Long userId, LocalDate since);
 
-    // Find orders by user ID and order status
-    @Query("SELECT o FROM Order o JOIN o.address a JOIN a.user u WHERE u.userId = ?1 AND o.orderStatus = ?2 ORDER BY o.orderDate DESC")
-    Page<Order> findByUserIdAndOrderStatus(Long userId, String orderStatus, Pageable pageable);
+    // Find order keys by user ID and order status
+    @Query(value = "SELECT o.orderId AS orderId, o.orderDate AS orderDate FROM Order o "
+            + "WHERE o.userId = ?1 AND o.orderStatus = ?2 AND o.orderDate >= ?3",
+            countQuery = "SELECT COUNT(o) FROM Order o WHERE o.userId = ?1 AND o.orderStatus = ?2 AND o.orderDate >= ?3")
+    Page<OrderKey> findKeysByUserIdAndOrderStatus(Long userId, String orderStatus, LocalDate since, Pageable pageable);
 
-}
\ No newline at end of file
+}
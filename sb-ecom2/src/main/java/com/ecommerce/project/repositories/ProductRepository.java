@@ -3,44 +3,85 @@ package com.ecommerce.project.repositories;
 import com.ecommerce.project.model.Category;
 import com.ecommerce.project.model.Product;
 import com.ecommerce.project.model.User;
+import com.ecommerce.project.payload.ProductDTO;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpecificationExecutor<Product> {
-    Page<Product> findByCategoryOrderByPriceAsc(Category category, Pageable pageDetails);
+public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpecificationExecutor<Product>, ProductRepositoryCustom {
 
-    Page<Product> findByProductNameLikeIgnoreCase(String keyword, Pageable pageDetails);
+    // Listing queries select straight into ProductDTO so no Product entity (or its cart lines) is loaded
+    String PRODUCT_DTO = "new com.ecommerce.project.payload.ProductDTO(p.productId, p.productName, p.image, "
+            + "p.description, p.quantity, p.price, p.discount, p.specialPrice)";
 
-    // Find products by seller/user with pagination
-    Page<Product> findByUserOrderByProductIdDesc(User user, Pageable pageable);
+    // Edits load the row locked: the entity is written back whole, so a checkout or hot-inventory flush
+    // landing in between would otherwise have its quantity change overwritten
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM Product p WHERE p.productId = ?1")
+    Optional<Product> findByIdForUpdate(Long productId);
+
+    @Query(value = "SELECT " + PRODUCT_DTO + " FROM Product p WHERE p.category = ?1 ORDER BY p.price ASC",
+            countQuery = "SELECT COUNT(p) FROM Product p WHERE p.category = ?1")
+    Page<ProductDTO> findByCategoryOrderByPriceAsc(Category category, Pageable pageDetails);
+
+    // Products among the given ones with no stock left; checkout uses it to spot products that just sold out
+    @Query("SELECT p.productId FROM Product p WHERE p.productId IN ?1 AND p.quantity <= 0")
+    List<Long> findSoldOutIds(Collection<Long> productIds);
 
     // Find products by seller/user without pagination
-    List<Product> findByUserOrderByProductIdDesc(User user);
+    @Query("SELECT " + PRODUCT_DTO + " FROM Product p WHERE p.user = ?1 ORDER BY p.productId DESC")
+    List<ProductDTO> findByUserOrderByProductIdDesc(User user);
+
+    // Find products by user email, without the COUNT query
+    @Query("SELECT " + PRODUCT_DTO + " FROM Product p WHERE p.user.email = ?1 ORDER BY p.productId DESC")
+    Slice<ProductDTO> findSliceByUserEmail(String email, Pageable pageable);
 
-    // Find products by user email
-    @Query("SELECT p FROM Product p WHERE p.user.email = ?1 ORDER BY p.productId DESC")
-    Page<Product> findByUserEmailOrderByProductIdDesc(String email, Pageable pageable);
+    // Export of a seller's products, streamed in fetch-size chunks; must be consumed inside a transaction
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT " + PRODUCT_DTO + " FROM Product p WHERE p.user.email = ?1 ORDER BY p.productId")
+    Stream<ProductDTO> streamByUserEmail(String email);
 
     // Count products by user email
     @Query("SELECT COUNT(p) FROM Product p WHERE p.user.email = ?1")
     Long countByUserEmail(String email);
 
     // Find products by user ID with pagination
-    @Query("SELECT p FROM Product p WHERE p.user.userId = ?1 ORDER BY p.productId DESC")
-    Page<Product> findByUserIdOrderByProductIdDesc(Long userId, Pageable pageable);
+    @Query(value = "SELECT " + PRODUCT_DTO + " FROM Product p WHERE p.user.userId = ?1 ORDER BY p.productId DESC",
+            countQuery = "SELECT COUNT(p) FROM Product p WHERE p.user.userId = ?1")
+    Page<ProductDTO> findByUserIdOrderByProductIdDesc(Long userId, Pageable pageable);
 
     // Find products by user ID without pagination
-    @Query("SELECT p FROM Product p WHERE p.user.userId = ?1 ORDER BY p.productId DESC")
-    List<Product> findByUserIdOrderByProductIdDesc(Long userId);
+    @Query("SELECT " + PRODUCT_DTO + " FROM Product p WHERE p.user.userId = ?1 ORDER BY p.productId DESC")
+    List<ProductDTO> findByUserIdOrderByProductIdDesc(Long userId);
 
     // Count products by user ID
     @Query("SELECT COUNT(p) FROM Product p WHERE p.user.userId = ?1")
     Long countByUserId(Long userId);
+
+    // Hydrate a page of search hits or a batch lookup (order is restored by the caller)
+    @Query("SELECT " + PRODUCT_DTO + " FROM Product p WHERE p.productId IN ?1")
+    List<ProductDTO> findDTOsByProductIdIn(Collection<Long> productIds);
+
+    // Rows for the in-memory search index: productId, productName, description, categoryId, categoryName
+    @Query("SELECT p.productId, p.productName, p.description, c.categoryId, c.categoryName FROM Product p LEFT JOIN p.category c")
+    List<Object[]> findAllSearchDocuments();
+
+    @Query("SELECT p.productId, p.productName, p.description, c.categoryId, c.categoryName FROM Product p JOIN p.category c "
+            + "WHERE c.categoryId = ?1")
+    List<Object[]> findSearchDocumentsByCategoryId(Long categoryId);
 }
@@ -0,0 +1,19 @@
+package com.ecommerce.project.repositories;
+
+import com.ecommerce.project.model.Product;
+import com.ecommerce.project.payload.ProductDTO;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+import java.util.SortedMap;
+
+public interface ProductRepositoryCustom {
+    // Like findAll(spec, pageable) but projects into ProductDTO and reads pageSize + 1 rows instead of issuing a COUNT query
+    Slice<ProductDTO> findSlice(Specification<Product> spec, Pageable pageable);
+
+    // Conditionally decrements stock for every (non-hot) product in one JDBC batch, in productId order.
+    // Returns the IDs that had too little stock; the caller must roll back if any are returned.
+    List<Long> decrementStock(SortedMap<Long, Integer> quantitiesByProductId);
+}
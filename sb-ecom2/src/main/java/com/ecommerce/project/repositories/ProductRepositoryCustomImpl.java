@@ -0,0 +1,85 @@
+package com.ecommerce.project.repositories;
+
+import com.ecommerce.project.model.Product;
+import com.ecommerce.project.payload.ProductDTO;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+
+public class ProductRepositoryCustomImpl implements ProductRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Override
+    public Slice<ProductDTO> findSlice(Specification<Product> spec, Pageable pageable) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<ProductDTO> query = criteriaBuilder.createQuery(ProductDTO.class);
+        Root<Product> root = query.from(Product.class);
+        query.select(criteriaBuilder.construct(ProductDTO.class,
+                root.get("productId"), root.get("productName"), root.get("image"), root.get("description"),
+                root.get("quantity"), root.get("price"), root.get("discount"), root.get("specialPrice")));
+
+        Predicate predicate = spec.toPredicate(root, query, criteriaBuilder);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        // An explicit sort wins; otherwise keep any ordering the specification applied (e.g. relevance)
+        if (pageable.getSort().isSorted()) {
+            query.orderBy(QueryUtils.toOrders(pageable.getSort(), root, criteriaBuilder));
+        }
+
+        List<ProductDTO> content = entityManager.createQuery(query)
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize() + 1)
+                .getResultList();
+
+        boolean hasNext = content.size() > pageable.getPageSize();
+        return new SliceImpl<>(hasNext ? content.subList(0, pageable.getPageSize()) : content, pageable, hasNext);
+    }
+
+    @Override
+    public List<Long> decrementStock(SortedMap<Long, Integer> quantitiesByProductId) {
+        if (quantitiesByProductId.isEmpty()) {
+            return List.of();
+        }
+        List<Map.Entry<Long, Integer>> lines = new ArrayList<>(quantitiesByProductId.entrySet());
+
+        // The WHERE clause makes each check-and-decrement atomic under the row lock, so
+        // concurrent checkouts can never take stock below zero. Hot (flash-sale) rows are
+        // reserved through HotInventory instead and never match here.
+        int[] updated = jdbcTemplate.batchUpdate(
+                "UPDATE products SET quantity = quantity - ? WHERE product_id = ? AND quantity >= ? AND NOT hot_inventory",
+                lines, lines.size(), (ps, line) -> {
+                    ps.setInt(1, line.getValue());
+                    ps.setLong(2, line.getKey());
+                    ps.setInt(3, line.getValue());
+                })[0];
+
+        List<Long> insufficient = new ArrayList<>();
+        for (int i = 0; i < updated.length; i++) {
+            if (updated[i] == 0) {
+                insufficient.add(lines.get(i).getKey());
+            }
+        }
+        return insufficient;
+    }
+}
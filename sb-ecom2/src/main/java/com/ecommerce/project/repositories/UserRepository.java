@@ -2,6 +2,7 @@ package com.ecommerce.project.repositories;
 
 import com.ecommerce.project.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
@@ -11,6 +12,13 @@ public interface UserRepository extends JpaRepository<User, Long> {
 
     Optional<User> findByUserName(String username);
 
+    // Single-column lookups for the logged-in user; loading the User would also load its roles and cart
+    @Query("SELECT u.email FROM User u WHERE u.userName = ?1")
+    Optional<String> findEmailByUserName(String username);
+
+    @Query("SELECT u.userId FROM User u WHERE u.userName = ?1")
+    Optional<Long> findUserIdByUserName(String username);
+
     Boolean existsByUserName(String username);
 
     Boolean existsByEmail(String email);
@@ -1,12 +1,12 @@
 package com.ecommerce.project.service;
 
+import com.ecommerce.project.mapper.DtoMapper;
 import com.ecommerce.project.exceptions.ResourceNotFoundException;
 import com.ecommerce.project.model.Address;
 import com.ecommerce.project.model.User;
 import com.ecommerce.project.payload.AddressDTO;
 import com.ecommerce.project.repositories.AddressRepository;
 import com.ecommerce.project.repositories.UserRepository;
-import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -19,7 +19,7 @@ public class AddressServiceImpl implements AddressService{
     private AddressRepository addressRepository;
 
     @Autowired
-    private ModelMapper modelMapper;
+    private DtoMapper dtoMapper;
 
     @Autowired
     UserRepository userRepository;
@@ -30,7 +30,7 @@ public class AddressServiceImpl implements AddressService{
         System.out.println("Creating address for user: " + user.getEmail());
         System.out.println("Address data: " + addressDTO);
 
-        Address address = modelMapper.map(addressDTO, Address.class);
+        Address address = dtoMapper.toAddress(addressDTO);
         address.setUser(user);
 
         // Save the address first
@@ -42,14 +42,14 @@ public class AddressServiceImpl implements AddressService{
         User savedUser = userRepository.save(user);
         System.out.println("User saved with " + savedUser.getAddresses().size() + " addresses");
 
-        return modelMapper.map(savedAddress, AddressDTO.class);
+        return dtoMapper.toAddressDTO(savedAddress);
     }
 
     @Override
     public List<AddressDTO> getAddresses() {
         List<Address> addresses = addressRepository.findAll();
         return addresses.stream()
-                .map(address -> modelMapper.map(address, AddressDTO.class))
+                .map(dtoMapper::toAddressDTO)
                 .toList();
     }
 
@@ -57,7 +57,7 @@ public class AddressServiceImpl implements AddressService{
     public AddressDTO getAddressesById(Long addressId) {
         Address address = addressRepository.findById(addressId)
                 .orElseThrow(() -> new ResourceNotFoundException("Address", "addressId", addressId));
-        return modelMapper.map(address, AddressDTO.class);
+        return dtoMapper.toAddressDTO(address);
     }
 
     @Override
@@ -70,7 +70,7 @@ public class AddressServiceImpl implements AddressService{
         System.out.println("User " + refreshedUser.getEmail() + " has " + addresses.size() + " addresses in database");
 
         return addresses.stream()
-                .map(address -> modelMapper.map(address, AddressDTO.class))
+                .map(dtoMapper::toAddressDTO)
                 .toList();
     }
 
@@ -93,7 +93,7 @@ public class AddressServiceImpl implements AddressService{
         user.getAddresses().add(updatedAddress);
         userRepository.save(user);
 
-        return modelMapper.map(updatedAddress, AddressDTO.class);
+        return dtoMapper.toAddressDTO(updatedAddress);
     }
 
     @Override
@@ -0,0 +1,133 @@
+package com.ecommerce.project.service;
+
+import com.ecommerce.project.util.TransactionUtil;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Brings cart lines up to date after a product's price or discount changes. Each request
+ * runs in the background once the product change commits. Lines are re-priced in chunks.
+ * Each chunk is one transaction that updates the lines and then recomputes the totals of
+ * the carts they belong to.
+ *
+ * Requests are coalesced per product: while a product is queued, further changes to it are
+ * absorbed by the pending run. Every chunk reads the current products row, so the run
+ * always ends at the latest price.
+ */
+@Component
+public class CartRepricer {
+
+    public record Stats(int queued, long runs, long coalesced, long linesRepriced, long cartsRecomputed,
+                        long failures) {
+    }
+
+    // Lines whose price or discount differ from the product; returns one cart_id per line changed
+    private static final String REPRICE_LINES_SQL = """
+            UPDATE cart_items ci SET product_price = p.special_price, discount = p.discount
+            FROM products p
+            WHERE p.product_id = ci.product_id
+              AND ci.cart_item_id IN (
+                  SELECT x.cart_item_id FROM cart_items x JOIN products q ON q.product_id = x.product_id
+                  WHERE x.product_id = ?
+                    AND (x.product_price IS DISTINCT FROM q.special_price OR x.discount IS DISTINCT FROM q.discount)
+                  ORDER BY x.cart_item_id
+                  LIMIT ?)
+            RETURNING ci.cart_id""";
+
+    private static final String RECOMPUTE_TOTALS_SQL = """
+            UPDATE carts c SET total_price = (SELECT COALESCE(SUM(ci.product_price * ci.quantity), 0)
+                                              FROM cart_items ci WHERE ci.cart_id = c.cart_id)
+            WHERE c.cart_id = ANY (?)""";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${cart.reprice.chunk-size:500}")
+    private int chunkSize;
+
+    private final Set<Long> queued = ConcurrentHashMap.newKeySet();
+
+    private final LongAdder runs = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder linesRepriced = new LongAdder();
+    private final LongAdder cartsRecomputed = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+
+    private ExecutorService executor;
+
+    @PostConstruct
+    void start() {
+        executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "cart-repricer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    void stop() {
+        executor.shutdown();
+    }
+
+    /**
+     * Queues the product for repricing once the surrounding transaction commits.
+     */
+    public void reprice(Long productId) {
+        TransactionUtil.afterCommit(() -> {
+            if (queued.add(productId)) {
+                executor.execute(() -> run(productId));
+            } else {
+                coalesced.increment();
+            }
+        });
+    }
+
+    public Stats stats() {
+        return new Stats(queued.size(), runs.sum(), coalesced.sum(), linesRepriced.sum(), cartsRecomputed.sum(),
+                failures.sum());
+    }
+
+    private void run(Long productId) {
+        // Dequeued before reading prices, so a change committed from here on queues a new run
+        queued.remove(productId);
+        try {
+            int lines;
+            do {
+                lines = transactionTemplate.execute(status -> repriceChunk(productId));
+            } while (lines == chunkSize);
+            runs.increment();
+        } catch (RuntimeException e) {
+            failures.increment();
+            System.err.println("Cart repricing failed for product " + productId + ": " + e.getMessage());
+        }
+    }
+
+    private int repriceChunk(Long productId) {
+        List<Long> cartIds = jdbcTemplate.queryForList(REPRICE_LINES_SQL, Long.class, productId, chunkSize);
+        if (cartIds.isEmpty()) {
+            return 0;
+        }
+        Long[] distinctCartIds = cartIds.stream().distinct().toArray(Long[]::new);
+        jdbcTemplate.update(RECOMPUTE_TOTALS_SQL,
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("bigint", distinctCartIds)));
+
+        linesRepriced.add(cartIds.size());
+        cartsRecomputed.add(distinctCartIds.length);
+        return cartIds.size();
+    }
+}
@@ -13,12 +13,16 @@ public interface CartService {
 
     CartDTO getCart(String emailId, Long cartId);
 
+    // The logged-in user's cart, loaded with a single query
+    CartDTO getUserCart(String emailId);
+
     @Transactional
     CartDTO updateProductQuantityInCart(Long productId, Integer quantity);
 
     String deleteProductFromCart(Long cartId, Long productId);
 
-    void updateProductInCarts(Long cartId, Long productId);
+    // Removes the product from every cart; returns the number of carts affected
+    int removeProductFromAllCarts(Long productId);
 
     String createOrUpdateCartWithItems(List<CartItemDTO> cartItems);
 }
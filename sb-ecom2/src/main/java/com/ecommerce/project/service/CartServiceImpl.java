@@ -1,5 +1,6 @@
 package com.ecommerce.project.service;
 
+import com.ecommerce.project.mapper.DtoMapper;
 import com.ecommerce.project.exceptions.APIException;
 import com.ecommerce.project.exceptions.ResourceNotFoundException;
 import com.ecommerce.project.model.Cart;
@@ -13,14 +14,16 @@ import com.ecommerce.project.repositories.CartRepository;
 import com.ecommerce.project.repositories.ProductRepository;
 import com.ecommerce.project.util.AuthUtil;
 import jakarta.transaction.Transactional;
-import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 @Service
 public class CartServiceImpl implements CartService{
@@ -37,85 +40,59 @@ public class CartServiceImpl implements CartService{
     CartItemRepository cartItemRepository;
 
     @Autowired
-    ModelMapper modelMapper;
+    DtoMapper dtoMapper;
+
+    @Autowired
+    ProductCache productCache;
+
+    @Autowired
+    HotInventory hotInventory;
 
     @Value("${image.base.url}")
     private String imageBaseUrl;
 
+    @Transactional
     @Override
     public CartDTO addProductToCart(Long productId, Integer quantity) {
-        Cart cart  = createCart();
+        Long cartId = userCartId();
 
-        Product product = productRepository.findById(productId)
-                .orElseThrow(() -> new ResourceNotFoundException("Product", "productId", productId));
+        ProductCache.ProductSnapshot product = productCache.get(productId);
+        if (product == null) {
+            throw new ResourceNotFoundException("Product", "productId", productId);
+        }
 
-        CartItem cartItem = cartItemRepository.findCartItemByProductIdAndCartId(cart.getCartId(), productId);
+        long stock = availableStock(product);
 
-        if (cartItem != null) {
-            throw new APIException("Product " + product.getProductName() + " already exists in the cart");
+        if (stock == 0) {
+            throw new APIException(product.productName() + " is not available");
         }
 
-        if (product.getQuantity() == 0) {
-            throw new APIException(product.getProductName() + " is not available");
+        if (stock < quantity) {
+            throw new APIException("Please, make an order of the " + product.productName()
+                    + " less than or equal to the quantity " + stock + ".");
         }
 
-        if (product.getQuantity() < quantity) {
-            throw new APIException("Please, make an order of the " + product.getProductName()
-                    + " less than or equal to the quantity " + product.getQuantity() + ".");
+        Integer added = cartItemRepository.insertLine(cartId, productId, quantity,
+                product.discount(), product.specialPrice());
+        if (added == null) {
+            throw new APIException("Product " + product.productName() + " already exists in the cart");
         }
 
-        CartItem newCartItem = new CartItem();
-
-        newCartItem.setProduct(product);
-        newCartItem.setCart(cart);
-        newCartItem.setQuantity(quantity);
-        newCartItem.setDiscount(product.getDiscount());
-        newCartItem.setProductPrice(product.getSpecialPrice());
-
-        cartItemRepository.save(newCartItem);
-
-        product.setQuantity(product.getQuantity());
-
-        cart.setTotalPrice(cart.getTotalPrice() + (product.getSpecialPrice() * quantity));
-
-        cartRepository.save(cart);
-
-        CartDTO cartDTO = modelMapper.map(cart, CartDTO.class);
-
-        List<CartItem> cartItems = cart.getCartItems();
-
-        Stream<ProductDTO> productStream = cartItems.stream().map(item -> {
-            ProductDTO map = modelMapper.map(item.getProduct(), ProductDTO.class);
-            map.setQuantity(item.getQuantity());
-            map.setImage(constructImageUrl(item.getProduct().getImage()));
-            return map;
-        });
-
-        cartDTO.setProducts(productStream.toList());
-
-        return cartDTO;
+        return refreshedCart(cartId);
     }
 
     @Override
     public List<CartDTO> getAllCarts() {
-        List<Cart> carts = cartRepository.findAll();
+        List<Cart> carts = cartRepository.findAllWithItems();
 
         if (carts.size() == 0) {
             throw new APIException("No cart exists");
         }
 
         List<CartDTO> cartDTOs = carts.stream().map(cart -> {
-            CartDTO cartDTO = modelMapper.map(cart, CartDTO.class);
-
-            List<ProductDTO> products = cart.getCartItems().stream().map(cartItem -> {
-                ProductDTO productDTO = modelMapper.map(cartItem.getProduct(), ProductDTO.class);
-                productDTO.setQuantity(cartItem.getQuantity()); // Set the quantity from CartItem
-                productDTO.setImage(constructImageUrl(cartItem.getProduct().getImage()));
-                return productDTO;
-            }).collect(Collectors.toList());
-
+            CartDTO cartDTO = dtoMapper.toCartDTO(cart);
 
-            cartDTO.setProducts(products);
+            cartDTO.setProducts(toProductDTOs(cart.getCartItems()));
 
             return cartDTO;
 
@@ -126,21 +103,23 @@ public class CartServiceImpl implements CartService{
 
     @Override
     public CartDTO getCart(String emailId, Long cartId) {
-        Cart cart = cartRepository.findCartByEmailAndCartId(emailId, cartId);
+        Cart cart = cartRepository.findCartWithItemsByEmailAndCartId(emailId, cartId);
         if (cart == null){
             throw new ResourceNotFoundException("Cart", "cartId", cartId);
         }
-        CartDTO cartDTO = modelMapper.map(cart, CartDTO.class);
-        cart.getCartItems().forEach(c ->
-                c.getProduct().setQuantity(c.getQuantity()));
-        List<ProductDTO> products = cart.getCartItems().stream()
-                .map(cartItem -> {
-                    ProductDTO productDTO = modelMapper.map(cartItem.getProduct(), ProductDTO.class);
-                    productDTO.setImage(constructImageUrl(cartItem.getProduct().getImage()));
-                    return productDTO;
-                })
-                .toList();
-        cartDTO.setProducts(products);
+        CartDTO cartDTO = dtoMapper.toCartDTO(cart);
+        cartDTO.setProducts(toProductDTOs(cart.getCartItems()));
+        return cartDTO;
+    }
+
+    @Override
+    public CartDTO getUserCart(String emailId) {
+        Cart cart = cartRepository.findCartWithItemsByEmail(emailId);
+        if (cart == null) {
+            throw new ResourceNotFoundException("Cart", "email", emailId);
+        }
+        CartDTO cartDTO = dtoMapper.toCartDTO(cart);
+        cartDTO.setProducts(toProductDTOs(cart.getCartItems()));
         return cartDTO;
     }
 
@@ -149,84 +128,84 @@ public class CartServiceImpl implements CartService{
     public CartDTO updateProductQuantityInCart(Long productId, Integer quantity) {
 
         String emailId = authUtil.loggedInEmail();
-        Cart userCart = cartRepository.findCartByEmail(emailId);
-        Long cartId  = userCart.getCartId();
-
-        Cart cart = cartRepository.findById(cartId)
-                .orElseThrow(() -> new ResourceNotFoundException("Cart", "cartId", cartId));
-
-        Product product = productRepository.findById(productId)
-                .orElseThrow(() -> new ResourceNotFoundException("Product", "productId", productId));
-
-        if (product.getQuantity() == 0) {
-            throw new APIException(product.getProductName() + " is not available");
+        Long cartId = cartRepository.findCartIdByEmail(emailId);
+        if (cartId == null) {
+            throw new ResourceNotFoundException("Cart", "email", emailId);
         }
 
-        if (product.getQuantity() < quantity) {
-            throw new APIException("Please, make an order of the " + product.getProductName()
-                    + " less than or equal to the quantity " + product.getQuantity() + ".");
+        ProductCache.ProductSnapshot product = productCache.get(productId);
+        if (product == null) {
+            throw new ResourceNotFoundException("Product", "productId", productId);
         }
 
-        CartItem cartItem = cartItemRepository.findCartItemByProductIdAndCartId(cartId, productId);
+        long stock = availableStock(product);
 
-        if (cartItem == null) {
-            throw new APIException("Product " + product.getProductName() + " not available in the cart!!!");
+        if (stock == 0) {
+            throw new APIException(product.productName() + " is not available");
         }
 
-        // Calculate new quantity
-        int newQuantity = cartItem.getQuantity() + quantity;
-
-        // Validation to prevent negative quantities
-        if (newQuantity < 0) {
-            throw new APIException("The resulting quantity cannot be negative.");
+        if (stock < quantity) {
+            throw new APIException("Please, make an order of the " + product.productName()
+                    + " less than or equal to the quantity " + stock + ".");
         }
 
-        if (newQuantity == 0){
-            deleteProductFromCart(cartId, productId);
-        } else {
-            cartItem.setProductPrice(product.getSpecialPrice());
-            cartItem.setQuantity(cartItem.getQuantity() + quantity);
-            cartItem.setDiscount(product.getDiscount());
-            cart.setTotalPrice(cart.getTotalPrice() + (cartItem.getProductPrice() * quantity));
-            cartRepository.save(cart);
+        // One statement per change; the line is re-priced at the current special price. The line has to
+        // exist already: why the statement changed nothing is only worked out on that failure path.
+        Integer newQuantity = cartItemRepository.changeLineQuantity(cartId, productId, quantity,
+                product.discount(), product.specialPrice());
+        if (newQuantity == null) {
+            if (cartItemRepository.findCartItemByProductIdAndCartId(cartId, productId) == null) {
+                throw new APIException("Product " + product.productName() + " not available in the cart!!!");
+            }
+            throw new APIException("The resulting quantity cannot be negative.");
         }
-
-        CartItem updatedItem = cartItemRepository.save(cartItem);
-        if(updatedItem.getQuantity() == 0){
-            cartItemRepository.deleteById(updatedItem.getCartItemId());
+        if (newQuantity == 0) {
+            cartItemRepository.deleteEmptyLine(cartId, productId);
         }
 
-
-        CartDTO cartDTO = modelMapper.map(cart, CartDTO.class);
-
-        List<CartItem> cartItems = cart.getCartItems();
-
-        Stream<ProductDTO> productStream = cartItems.stream().map(item -> {
-            ProductDTO prd = modelMapper.map(item.getProduct(), ProductDTO.class);
-            prd.setQuantity(item.getQuantity());
-            prd.setImage(constructImageUrl(item.getProduct().getImage()));
-            return prd;
-        });
-
-
-        cartDTO.setProducts(productStream.toList());
-
-        return cartDTO;
+        return refreshedCart(cartId);
     }
 
 
-    private Cart createCart() {
-        Cart userCart  = cartRepository.findCartByEmail(authUtil.loggedInEmail());
-        if(userCart != null){
-            return userCart;
+    private Long userCartId() {
+        Long cartId = cartRepository.findCartIdByEmail(authUtil.loggedInEmail());
+        if (cartId != null) {
+            return cartId;
         }
 
         Cart cart = new Cart();
         cart.setTotalPrice(0.00);
         cart.setUser(authUtil.loggedInUser());
-        Cart newCart =  cartRepository.save(cart);
+        return cartRepository.save(cart).getCartId();
+    }
+
+    // Totals are always recomputed from the lines, never adjusted incrementally
+    private CartDTO refreshedCart(Long cartId) {
+        cartRepository.recomputeTotalPrice(cartId);
+        Cart cart = cartRepository.findCartWithItemsById(cartId)
+                .orElseThrow(() -> new ResourceNotFoundException("Cart", "cartId", cartId));
+        CartDTO cartDTO = dtoMapper.toCartDTO(cart);
+        cartDTO.setProducts(toProductDTOs(cart.getCartItems()));
+        return cartDTO;
+    }
+
+    // Flash-sale products are checked against their live counter; the snapshot lags behind it
+    private long availableStock(ProductCache.ProductSnapshot product) {
+        Long hotStock = hotInventory.available(product.productId());
+        return hotStock != null ? hotStock : product.quantity();
+    }
 
-        return newCart;
+    // Cart lines are rendered from the products the cart query fetched, with the quantity taken from the
+    // cart item; every cart is loaded through CartRepository.CART_WITH_ITEMS, so no product is lazy here
+    private List<ProductDTO> toProductDTOs(List<CartItem> cartItems) {
+        return cartItems.stream()
+                .map(item -> {
+                    ProductDTO productDTO = dtoMapper.toProductDTO(item.getProduct());
+                    productDTO.setQuantity(item.getQuantity());
+                    productDTO.setImage(constructImageUrl(productDTO.getImage()));
+                    return productDTO;
+                })
+                .toList();
     }
 
     private String constructImageUrl(String imageName) {
@@ -237,95 +216,93 @@ public class CartServiceImpl implements CartService{
     @Transactional
     @Override
     public String deleteProductFromCart(Long cartId, Long productId) {
-        Cart cart = cartRepository.findById(cartId)
-                .orElseThrow(() -> new ResourceNotFoundException("Cart", "cartId", cartId));
-
-        CartItem cartItem = cartItemRepository.findCartItemByProductIdAndCartId(cartId, productId);
+        if (!cartRepository.existsById(cartId)) {
+            throw new ResourceNotFoundException("Cart", "cartId", cartId);
+        }
 
-        if (cartItem == null) {
+        if (cartItemRepository.deleteCartItemByProductIdAndCartId(cartId, productId) == 0) {
             throw new ResourceNotFoundException("Product", "productId", productId);
         }
+        cartRepository.recomputeTotalPrice(cartId);
 
-        cart.setTotalPrice(cart.getTotalPrice() -
-                (cartItem.getProductPrice() * cartItem.getQuantity()));
-
-        cartItemRepository.deleteCartItemByProductIdAndCartId(cartId, productId);
-
-        return "Product " + cartItem.getProduct().getProductName() + " removed from the cart !!!";
+        ProductCache.ProductSnapshot product = productCache.get(productId);
+        String productName = product != null ? product.productName() : String.valueOf(productId);
+        return "Product " + productName + " removed from the cart !!!";
     }
 
 
+    @Transactional
     @Override
-    public void updateProductInCarts(Long cartId, Long productId) {
-        Cart cart = cartRepository.findById(cartId)
-                .orElseThrow(() -> new ResourceNotFoundException("Cart", "cartId", cartId));
-
-        Product product = productRepository.findById(productId)
-                .orElseThrow(() -> new ResourceNotFoundException("Product", "productId", productId));
-
-        CartItem cartItem = cartItemRepository.findCartItemByProductIdAndCartId(cartId, productId);
-
-        if (cartItem == null) {
-            throw new APIException("Product " + product.getProductName() + " not available in the cart!!!");
+    public int removeProductFromAllCarts(Long productId) {
+        // Two statements however many carts hold the product: the lines, returning their carts, then
+        // those carts' totals. Lines before carts, the lock order of every other cart write.
+        List<Long> cartIds = cartItemRepository.deleteAllByProductId(productId);
+        if (cartIds.isEmpty()) {
+            return 0;
         }
-
-        double cartPrice = cart.getTotalPrice()
-                - (cartItem.getProductPrice() * cartItem.getQuantity());
-
-        cartItem.setProductPrice(product.getSpecialPrice());
-
-        cart.setTotalPrice(cartPrice
-                + (cartItem.getProductPrice() * cartItem.getQuantity()));
-
-        cartItem = cartItemRepository.save(cartItem);
+        return cartRepository.recomputeTotalPrices(cartIds.toArray(Long[]::new));
     }
 
+
     @Transactional
     @Override
     public String createOrUpdateCartWithItems(List<CartItemDTO> cartItems) {
-        // Get user's email
-        String emailId = authUtil.loggedInEmail();
-
-        // Check if an existing cart is available or create a new one
-        Cart existingCart = cartRepository.findCartByEmail(emailId);
-        if (existingCart == null) {
-            existingCart = new Cart();
-            existingCart.setTotalPrice(0.00);
-            existingCart.setUser(authUtil.loggedInUser());
-            existingCart = cartRepository.save(existingCart);
-        } else {
-            // Clear all current items in the existing cart
-            cartItemRepository.deleteAllByCartId(existingCart.getCartId());
-        }
+        Long cartId = userCartId();
 
-        double totalPrice = 0.00;
-
-        // Process each item in the request to add to the cart
+        // Requested quantity per product; a product listed twice is counted once with both quantities
+        Map<Long, Integer> requested = new LinkedHashMap<>();
         for (CartItemDTO cartItemDTO : cartItems) {
-            Long productId = cartItemDTO.getProductId();
             Integer quantity = cartItemDTO.getQuantity();
+            if (quantity == null || quantity <= 0) {
+                throw new APIException("Quantity must be positive for product " + cartItemDTO.getProductId());
+            }
+            requested.merge(cartItemDTO.getProductId(), quantity, Integer::sum);
+        }
 
-            // Find the product by ID
-            Product product = productRepository.findById(productId)
-                    .orElseThrow(() -> new ResourceNotFoundException("Product", "productId", productId));
-
-            // Directly update product stock and total price
-            // product.setQuantity(product.getQuantity() - quantity);
-            totalPrice += product.getSpecialPrice() * quantity;
-
-            // Create and save cart item
-            CartItem cartItem = new CartItem();
-            cartItem.setProduct(product);
-            cartItem.setCart(existingCart);
-            cartItem.setQuantity(quantity);
-            cartItem.setProductPrice(product.getSpecialPrice());
-            cartItem.setDiscount(product.getDiscount());
-            cartItemRepository.save(cartItem);
+        // All products in one query, validated in memory
+        Map<Long, Product> products = productRepository.findAllById(requested.keySet()).stream()
+                .collect(Collectors.toMap(Product::getProductId, Function.identity()));
+        for (Map.Entry<Long, Integer> line : requested.entrySet()) {
+            Product product = products.get(line.getKey());
+            if (product == null) {
+                throw new ResourceNotFoundException("Product", "productId", line.getKey());
+            }
+            Long hotStock = hotInventory.available(product.getProductId());
+            long stock = hotStock != null ? hotStock : product.getQuantity();
+            if (stock < line.getValue()) {
+                throw new APIException("Please, make an order of the " + product.getProductName()
+                        + " less than or equal to the quantity " + stock + ".");
+            }
         }
 
-        // Update the cart's total price and save
-        existingCart.setTotalPrice(totalPrice);
-        cartRepository.save(existingCart);
+        // Diff against the lines already in the cart: unchanged lines are left alone, the rest are
+        // written together when the recompute below flushes (JDBC batching, pooled ids)
+        List<CartItem> removed = new ArrayList<>();
+        for (CartItem existing : cartItemRepository.findAllByCartId(cartId)) {
+            Long productId = existing.getProduct().getProductId();
+            Integer quantity = requested.remove(productId);
+            if (quantity == null) {
+                removed.add(existing);
+            } else {
+                Product product = products.get(productId);
+                existing.setQuantity(quantity);
+                existing.setProductPrice(product.getSpecialPrice());
+                existing.setDiscount(product.getDiscount());
+            }
+        }
+        cartItemRepository.deleteAllInBatch(removed);
+
+        Cart cart = cartRepository.getReferenceById(cartId);
+        List<CartItem> added = requested.entrySet().stream()
+                .map(line -> {
+                    Product product = products.get(line.getKey());
+                    return new CartItem(null, cart, product, line.getValue(),
+                            product.getDiscount(), product.getSpecialPrice());
+                })
+                .toList();
+        cartItemRepository.saveAll(added);
+
+        cartRepository.recomputeTotalPrice(cartId);
         return "Cart created/updated with the new items successfully";
     }
 
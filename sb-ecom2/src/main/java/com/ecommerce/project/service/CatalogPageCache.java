@@ -0,0 +1,119 @@
+package com.ecommerce.project.service;
+
+import com.ecommerce.project.util.TransactionUtil;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Serialized response bodies of the public catalog listings, tagged with the catalog version
+ * they were rendered at. Any product or category write bumps the version, which makes every
+ * older page a miss without having to find or scan its key.
+ *
+ * The version is the catalog_version_seq sequence, so a write through one instance invalidates
+ * the pages of every instance. Each instance re-reads it at most every catalog.version.refresh-ms;
+ * its own bumps are seen at once.
+ */
+@Component
+public class CatalogPageCache {
+
+    public record Page(byte[] body, String contentType, Map<String, List<String>> headers) {
+    }
+
+    private record Entry(Page page, long version, long expiresAt) {
+    }
+
+    @Value("${catalog.page-cache.max-size:1000}")
+    private int maxSize;
+
+    @Value("${catalog.page-cache.ttl-ms:300000}")
+    private long ttlMs;
+
+    @Value("${catalog.version.refresh-ms:1000}")
+    private long refreshMs;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // Last version seen, and when it was last read from the sequence. Only ever moves forward.
+    private volatile long version;
+    private volatile long refreshedAt;
+
+    // Access-ordered, so the eldest entry is the least recently used one. Guarded by itself.
+    private final Map<String, Entry> pages = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            return size() > maxSize;
+        }
+    };
+
+    public long version() {
+        if (System.currentTimeMillis() - refreshedAt >= refreshMs) {
+            refresh();
+        }
+        return version;
+    }
+
+    /**
+     * Marks every cached page as stale, on every instance. Bumped again after commit so a page
+     * rendered from the pre-commit state in between is not kept either.
+     */
+    public void bump() {
+        advance(nextVersion());
+        TransactionUtil.afterCommit(() -> advance(nextVersion()));
+    }
+
+    private long nextVersion() {
+        return jdbcTemplate.queryForObject("SELECT nextval('catalog_version_seq')", Long.class);
+    }
+
+    private synchronized void refresh() {
+        long now = System.currentTimeMillis();
+        if (now - refreshedAt < refreshMs) {
+            return;
+        }
+        // last_value is only meaningful once nextval has been called
+        advance(jdbcTemplate.queryForObject(
+                "SELECT CASE WHEN is_called THEN last_value ELSE 0 END FROM catalog_version_seq", Long.class));
+        refreshedAt = now;
+    }
+
+    private synchronized void advance(long seen) {
+        if (seen > version) {
+            version = seen;
+        }
+    }
+
+    public Page get(String key) {
+        long now = System.currentTimeMillis();
+        long current = version();
+        synchronized (pages) {
+            Entry entry = pages.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (entry.version() != current || entry.expiresAt() <= now) {
+                pages.remove(key);
+                return null;
+            }
+            return entry.page();
+        }
+    }
+
+    /**
+     * Stores a page rendered at renderedVersion, unless the catalog changed while it was rendered.
+     */
+    public void put(String key, long renderedVersion, Page page) {
+        long current = version();
+        synchronized (pages) {
+            if (renderedVersion == current) {
+                pages.put(key, new Entry(page, renderedVersion, System.currentTimeMillis() + ttlMs));
+            }
+        }
+    }
+}
@@ -1,16 +1,16 @@
 package com.ecommerce.project.service;
 
+import com.ecommerce.project.mapper.DtoMapper;
 import com.ecommerce.project.exceptions.APIException;
 import com.ecommerce.project.exceptions.ResourceNotFoundException;
 import com.ecommerce.project.model.Category;
 import com.ecommerce.project.payload.CategoryDTO;
 import com.ecommerce.project.payload.CategoryResponse;
 import com.ecommerce.project.repositories.CategoryRepository;
-import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 
@@ -23,43 +23,59 @@ public class CategoryServiceImpl implements CategoryService{
     private CategoryRepository categoryRepository;
 
     @Autowired
-    private ModelMapper modelMapper;
+    private DtoMapper dtoMapper;
+
+    @Autowired
+    private ListingTotals listingTotals;
+
+    @Autowired
+    private CatalogPageCache catalogPageCache;
+
+    @Autowired
+    private ProductSearchIndex productSearchIndex;
 
     @Override
-    public CategoryResponse getAllCategories(Integer pageNumber, Integer pageSize, String sortBy, String sortOrder) {
+    public CategoryResponse getAllCategories(Integer pageNumber, Integer pageSize, String sortBy, String sortOrder, boolean includeTotal) {
         Sort sortByAndOrder = sortOrder.equalsIgnoreCase("asc")
                 ? Sort.by(sortBy).ascending()
                 : Sort.by(sortBy).descending();
 
         Pageable pageDetails = PageRequest.of(pageNumber, pageSize, sortByAndOrder);
-        Page<Category> categoryPage = categoryRepository.findAll(pageDetails);
+        Slice<Category> categoryPage = categoryRepository.findAllBy(pageDetails);
 
         List<Category> categories = categoryPage.getContent();
         if (categories.isEmpty())
             throw new APIException("No category created till now.");
 
         List<CategoryDTO> categoryDTOS = categories.stream()
-                .map(category -> modelMapper.map(category, CategoryDTO.class))
+                .map(dtoMapper::toCategoryDTO)
                 .toList();
 
         CategoryResponse categoryResponse = new CategoryResponse();
         categoryResponse.setContent(categoryDTOS);
         categoryResponse.setPageNumber(categoryPage.getNumber());
         categoryResponse.setPageSize(categoryPage.getSize());
-        categoryResponse.setTotalElements(categoryPage.getTotalElements());
-        categoryResponse.setTotalPages(categoryPage.getTotalPages());
         categoryResponse.setLastPage(categoryPage.isLast());
+
+        if (includeTotal) {
+            ListingTotals.Total total = listingTotals.estimated("categories", categoryRepository::count);
+            categoryResponse.setTotalElements(total.count());
+            categoryResponse.setTotalPages(total.totalPages(pageSize));
+            categoryResponse.setTotalExact(total.exact());
+        }
         return categoryResponse;
     }
 
     @Override
     public CategoryDTO createCategory(CategoryDTO categoryDTO) {
-        Category category = modelMapper.map(categoryDTO, Category.class);
+        Category category = dtoMapper.toCategory(categoryDTO);
         Category categoryFromDb = categoryRepository.findByCategoryName(category.getCategoryName());
         if (categoryFromDb != null)
             throw new APIException("Category with the name " + category.getCategoryName() + " already exists !!!");
         Category savedCategory = categoryRepository.save(category);
-        return modelMapper.map(savedCategory, CategoryDTO.class);
+        listingTotals.evict("categories");
+        catalogPageCache.bump();
+        return dtoMapper.toCategoryDTO(savedCategory);
     }
 
     @Override
@@ -68,7 +84,11 @@ public class CategoryServiceImpl implements CategoryService{
                 .orElseThrow(() -> new ResourceNotFoundException("Category","categoryId",categoryId));
 
         categoryRepository.delete(category);
-        return modelMapper.map(category, CategoryDTO.class);
+        listingTotals.evict("categories");
+        listingTotals.evict("products|");
+        productSearchIndex.reindexCategory(categoryId);
+        catalogPageCache.bump();
+        return dtoMapper.toCategoryDTO(category);
     }
 
     @Override
@@ -76,9 +96,12 @@ public class CategoryServiceImpl implements CategoryService{
         Category savedCategory = categoryRepository.findById(categoryId)
                 .orElseThrow(() -> new ResourceNotFoundException("Category","categoryId",categoryId));
 
-        Category category = modelMapper.map(categoryDTO, Category.class);
+        Category category = dtoMapper.toCategory(categoryDTO);
         category.setCategoryId(categoryId);
         savedCategory = categoryRepository.save(category);
-        return modelMapper.map(savedCategory, CategoryDTO.class);
+        // The index stores the category name with each product
+        productSearchIndex.reindexCategory(categoryId);
+        catalogPageCache.bump();
+        return dtoMapper.toCategoryDTO(savedCategory);
     }
 }
@@ -0,0 +1,227 @@
+package com.ecommerce.project.service;
+
+import com.ecommerce.project.exceptions.APIException;
+import com.ecommerce.project.exceptions.ResourceNotFoundException;
+import com.ecommerce.project.model.OrderIntent;
+import com.ecommerce.project.payload.OrderDTO;
+import com.ecommerce.project.payload.OrderIntentDTO;
+import com.ecommerce.project.repositories.AddressRepository;
+import com.ecommerce.project.repositories.CartItemRepository;
+import com.ecommerce.project.repositories.OrderIntentRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Asynchronous checkout. The request thread only validates and stores an order intent
+ * (order_intents is the durable outbox); a fixed pool of workers turns pending intents into
+ * orders through the regular placeOrder, so peak checkout load queues up in the table instead
+ * of holding request threads and connections.
+ *
+ * A dispatcher thread of its own claims a batch of intents in one statement (PENDING ->
+ * PROCESSING), hands it to the workers and claims the next batch once they are done; it never
+ * runs on the shared scheduler. Each intent is placed and marked COMPLETED in one transaction
+ * while its row is locked. A claim left behind by a crashed instance goes stale after
+ * checkout.async.claim-timeout-ms and is claimed again.
+ */
+@Component
+public class CheckoutQueue {
+
+    @Autowired
+    private OrderIntentRepository orderIntentRepository;
+
+    @Autowired
+    private CartItemRepository cartItemRepository;
+
+    @Autowired
+    private AddressRepository addressRepository;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${checkout.async.workers:4}")
+    private int workers;
+
+    @Value("${checkout.async.batch-size:50}")
+    private int batchSize;
+
+    @Value("${checkout.async.poll-interval-ms:200}")
+    private long pollIntervalMs;
+
+    @Value("${checkout.async.claim-timeout-ms:300000}")
+    private long claimTimeoutMs;
+
+    private ExecutorService executor;
+
+    private volatile Thread dispatcher;
+
+    @PostConstruct
+    void start() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(workers, runnable -> {
+            Thread thread = new Thread(runnable, "checkout-worker-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    void startDispatcher() {
+        Thread thread = new Thread(this::dispatch, "checkout-dispatcher");
+        thread.setDaemon(true);
+        dispatcher = thread;
+        thread.start();
+    }
+
+    @PreDestroy
+    void stop() {
+        Thread thread = dispatcher;
+        dispatcher = null;
+        if (thread != null) {
+            thread.interrupt();
+        }
+        executor.shutdown();
+    }
+
+    /**
+     * Accepts a cash-on-delivery checkout for later processing and returns its reference.
+     * A repeated Idempotency-Key gets the intent it first created back instead of a second one.
+     */
+    public OrderIntentDTO enqueue(String email, Long addressId, String idempotencyKey) {
+        String key = idempotencyKey == null || idempotencyKey.isBlank() ? null : idempotencyKey;
+        if (key != null) {
+            if (key.length() > IdempotencyStore.MAX_KEY_LENGTH) {
+                throw new APIException("Idempotency-Key must be at most " + IdempotencyStore.MAX_KEY_LENGTH + " characters");
+            }
+            // Checked before the cart: once the first intent is processed the cart is empty
+            OrderIntent existing = orderIntentRepository.findByEmailAndIdempotencyKey(email, key);
+            if (existing != null) {
+                return replay(existing, addressId);
+            }
+        }
+
+        if (!cartItemRepository.existsByCartUserEmail(email)) {
+            throw new APIException("Cart is empty");
+        }
+        if (!addressRepository.existsById(addressId)) {
+            throw new ResourceNotFoundException("Address", "addressId", addressId);
+        }
+
+        OrderIntent intent = new OrderIntent(null, UUID.randomUUID().toString(), email, addressId, key,
+                OrderIntent.PENDING, null, null, LocalDateTime.now(), null, null);
+        try {
+            return toDTO(orderIntentRepository.saveAndFlush(intent));
+        } catch (DataIntegrityViolationException e) {
+            // A concurrent request with the same key stored its intent first; answer with that one
+            OrderIntent winner = key == null ? null : orderIntentRepository.findByEmailAndIdempotencyKey(email, key);
+            if (winner == null) {
+                throw e;
+            }
+            return replay(winner, addressId);
+        }
+    }
+
+    public OrderIntentDTO getStatus(String email, String reference) {
+        OrderIntent intent = orderIntentRepository.findByReferenceAndEmail(reference, email);
+        if (intent == null) {
+            throw new ResourceNotFoundException("Order intent", "reference", reference);
+        }
+        return toDTO(intent);
+    }
+
+    // Claims and processes a batch at a time; sleeps for the poll interval only when there is nothing to claim
+    private void dispatch() {
+        while (dispatcher == Thread.currentThread()) {
+            try {
+                List<Long> claimed = transactionTemplate.execute(
+                        status -> orderIntentRepository.claimBatch(batchSize, claimTimeoutMs));
+                if (claimed == null || claimed.isEmpty()) {
+                    Thread.sleep(pollIntervalMs);
+                    continue;
+                }
+                List<Callable<Void>> tasks = claimed.stream()
+                        .<Callable<Void>>map(intentId -> () -> {
+                            process(intentId);
+                            return null;
+                        })
+                        .toList();
+                executor.invokeAll(tasks);
+            } catch (InterruptedException e) {
+                return;
+            } catch (RuntimeException e) {
+                System.err.println("Checkout dispatch failed: " + e.getMessage());
+                try {
+                    Thread.sleep(pollIntervalMs);
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private void process(Long intentId) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                OrderIntent intent = orderIntentRepository.lockClaimed(intentId);
+                if (intent == null) {
+                    // Already handled, or being handled by another instance
+                    return;
+                }
+                OrderDTO order = orderService.placeOrder(
+                        intent.getEmail(),
+                        intent.getAddressId(),
+                        "CASH_ON_DELIVERY",
+                        "CASH_ON_DELIVERY", // pgName - Cash on Delivery
+                        "COD_" + intent.getReference(), // pgPaymentId - unique per intent
+                        "PENDING", // pgStatus - COD orders start as pending
+                        "Cash on Delivery - Payment will be collected upon delivery"
+                );
+                intent.setStatus(OrderIntent.COMPLETED);
+                intent.setOrderId(order.getOrderId());
+                intent.setProcessedAt(LocalDateTime.now());
+            });
+        } catch (RuntimeException e) {
+            // The order rolled back with the transaction; record why in a fresh one
+            transactionTemplate.executeWithoutResult(status -> {
+                OrderIntent intent = orderIntentRepository.lockClaimed(intentId);
+                if (intent != null) {
+                    intent.setStatus(OrderIntent.FAILED);
+                    intent.setFailureReason(truncate(e.getMessage()));
+                    intent.setProcessedAt(LocalDateTime.now());
+                }
+            });
+        }
+    }
+
+    private static String truncate(String message) {
+        return message != null && message.length() > 255 ? message.substring(0, 255) : message;
+    }
+
+    private static OrderIntentDTO replay(OrderIntent intent, Long addressId) {
+        if (!intent.getAddressId().equals(addressId)) {
+            throw new APIException("Idempotency-Key has already been used for a different request");
+        }
+        return toDTO(intent);
+    }
+
+    private static OrderIntentDTO toDTO(OrderIntent intent) {
+        return new OrderIntentDTO(intent.getReference(), intent.getStatus(), intent.getOrderId(), intent.getFailureReason());
+    }
+}
@@ -0,0 +1,82 @@
+package com.ecommerce.project.service;
+
+import com.ecommerce.project.util.ExportFormat;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Writes a stream of rows to a response body one row at a time, so an export holds only the
+ * row being written (plus the JDBC fetch buffer) however large it is.
+ */
+@Component
+public class ExportWriter {
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * NDJSON writes each row as a JSON object on its own line; CSV writes the header and then the
+     * given column values. Returns the number of rows written. The output stream is flushed, not closed.
+     */
+    public <T> long write(Stream<T> rows, ExportFormat format, List<String> columns,
+                          Function<T, List<Object>> values, OutputStream out) throws IOException {
+        long count = 0;
+        Iterator<T> iterator = rows.iterator();
+        if (format == ExportFormat.NDJSON) {
+            SequenceWriter writer = objectMapper.writer().withRootValueSeparator("\n").writeValues(out);
+            while (iterator.hasNext()) {
+                writer.write(iterator.next());
+                count++;
+            }
+            writer.flush();
+            if (count > 0) {
+                out.write('\n');
+            }
+        } else {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            writeCsvLine(writer, columns);
+            while (iterator.hasNext()) {
+                writeCsvLine(writer, values.apply(iterator.next()));
+                count++;
+            }
+            writer.flush();
+        }
+        out.flush();
+        return count;
+    }
+
+    private static void writeCsvLine(Writer writer, List<?> values) throws IOException {
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writer.write(csvField(values.get(i)));
+        }
+        writer.write("\r\n");
+    }
+
+    // RFC 4180: quote fields containing separators, quotes or line breaks, doubling embedded quotes
+    private static String csvField(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value.toString();
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            return text;
+        }
+        return '"' + text.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,319 @@
+package com.ecommerce.project.service;
+
+import com.ecommerce.project.exceptions.APIException;
+import com.ecommerce.project.exceptions.ResourceNotFoundException;
+import com.ecommerce.project.util.TransactionUtil;
+import jakarta.annotation.PreDestroy;
+import jakarta.transaction.Transactional;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Opt-in "hot inventory" mode for flash-sale products. While a product is hot, checkouts
+ * reserve its stock from an in-memory {@link StripedCounter} instead of updating the
+ * products row, and record each reservation in inventory_reservations (plain inserts,
+ * no shared row lock). A scheduled flush folds those rows into products.quantity in one
+ * statement; because the reservations are committed with the order, a restart loses nothing
+ * and counters are reseeded from the flushed quantity.
+ *
+ * products.hot_inventory marks hot rows so the regular conditional decrement skips them.
+ *
+ * The counters are the authority for hot stock and they live in this JVM, so only one
+ * instance may serve hot products. It proves that by holding a session-level advisory lock
+ * (OWNER_LOCK_SQL) on a dedicated connection. Another instance refuses to enable hot mode, and
+ * it fails at startup if hot products exist.
+ */
+@Component
+public class HotInventory {
+
+    public record Status(Long productId, boolean hot, Long available) {
+    }
+
+    // Applies and removes every committed reservation atomically; returns the affected products and their new quantity
+    private static final String FLUSH_SQL = """
+            WITH flushed AS (DELETE FROM inventory_reservations RETURNING product_id, quantity),
+                 totals AS (SELECT product_id, SUM(quantity) AS quantity FROM flushed GROUP BY product_id)
+            UPDATE products p SET quantity = p.quantity - t.quantity
+            FROM totals t WHERE p.product_id = t.product_id
+            RETURNING p.product_id, p.quantity""";
+
+    // Stock a hot product has left: products.quantity less the reservations not flushed into it yet.
+    // One statement, so a flush committing meanwhile is seen either entirely or not at all.
+    private static final String AVAILABLE_SQL = """
+            SELECT p.quantity - COALESCE((SELECT SUM(r.quantity) FROM inventory_reservations r
+                                          WHERE r.product_id = p.product_id), 0)
+            FROM products p WHERE p.product_id = ? AND p.hot_inventory""";
+
+    private static final String OWNER_LOCK_SQL = "SELECT pg_try_advisory_lock(hashtext('hot_inventory_owner'))";
+
+    // How long disable() waits for checkouts holding reservations from the counter to complete
+    private static final long DRAIN_TIMEOUT_MS = 10_000;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private ProductCache productCache;
+
+    @Autowired
+    private CatalogPageCache catalogPageCache;
+
+    private final Map<Long, StripedCounter> counters = new ConcurrentHashMap<>();
+
+    // Reservations hold the read side while they take from counters; disable() takes the write side
+    // to remove a counter, after which its inFlight count covers every reservation made from it
+    private final ReadWriteLock counterGuard = new ReentrantReadWriteLock();
+
+    // Holds the owner lock for the life of this instance; guarded by this
+    private Connection ownerConnection;
+
+    public boolean isHot(Long productId) {
+        return counters.containsKey(productId);
+    }
+
+    // Stock still available to hot checkouts, or null if the product is not hot
+    public Long available(Long productId) {
+        StripedCounter counter = counters.get(productId);
+        return counter != null ? counter.available() : null;
+    }
+
+    /**
+     * Reserves every line or none, in the given (productId) order. The reservations are
+     * journaled in the current transaction and handed back to the counters if it rolls back.
+     * Returns the first product that could not be reserved, or an empty list.
+     */
+    public List<Long> reserve(SortedMap<Long, Integer> quantities) {
+        if (quantities.isEmpty()) {
+            return List.of();
+        }
+        List<Map.Entry<Long, Integer>> taken = new ArrayList<>(quantities.size());
+        List<StripedCounter> takenFrom = new ArrayList<>(quantities.size());
+        counterGuard.readLock().lock();
+        try {
+            for (Map.Entry<Long, Integer> line : quantities.entrySet()) {
+                StripedCounter counter = counters.get(line.getKey());
+                if (counter == null || !counter.tryTake(line.getValue())) {
+                    release(taken, takenFrom);
+                    return List.of(line.getKey());
+                }
+                taken.add(line);
+                takenFrom.add(counter);
+            }
+            takenFrom.forEach(counter -> counter.inFlight().increment());
+        } finally {
+            counterGuard.readLock().unlock();
+        }
+
+        TransactionUtil.afterCommit(() -> takenFrom.forEach(counter -> counter.inFlight().decrement()));
+        TransactionUtil.afterRollback(() -> {
+            takenFrom.forEach(counter -> counter.inFlight().decrement());
+            release(taken, takenFrom);
+        });
+
+        jdbcTemplate.batchUpdate("INSERT INTO inventory_reservations (product_id, quantity) VALUES (?, ?)",
+                taken, taken.size(), (ps, line) -> {
+                    ps.setLong(1, line.getKey());
+                    ps.setInt(2, line.getValue());
+                });
+        return List.of();
+    }
+
+    @Transactional
+    public Status enable(Long productId) {
+        if (isHot(productId)) {
+            return status(productId);
+        }
+        if (!acquireOwnership()) {
+            throw new APIException("Hot inventory is being served by another instance");
+        }
+        // Flagging the row under its lock means no regular checkout can decrement it after this point
+        if (jdbcTemplate.update("UPDATE products SET hot_inventory = true WHERE product_id = ?", productId) == 0) {
+            throw new ResourceNotFoundException("Product", "productId", productId);
+        }
+        long available = availableInDatabase(productId);
+        TransactionUtil.afterCommit(() -> counters.put(productId, new StripedCounter(available)));
+        return new Status(productId, true, available);
+    }
+
+    /**
+     * Returns the product to regular row-level reservations. The counter is closed first, so
+     * checkouts for the product fail instead of reserving from it. Checkouts that already hold
+     * reservations are waited for. Then every reservation is folded into products.quantity and
+     * the flag is cleared in the same transaction, so none can be applied twice or missed. If
+     * the transaction rolls back, the counter is put back.
+     */
+    @Transactional
+    public Status disable(Long productId) {
+        StripedCounter counter;
+        counterGuard.writeLock().lock();
+        try {
+            counter = counters.remove(productId);
+        } finally {
+            counterGuard.writeLock().unlock();
+        }
+        if (counter != null) {
+            TransactionUtil.afterRollback(() -> counters.putIfAbsent(productId, counter));
+            awaitDrained(productId, counter);
+        }
+
+        jdbcTemplate.queryForList(FLUSH_SQL);
+        int updated = jdbcTemplate.update("UPDATE products SET hot_inventory = false WHERE product_id = ?", productId);
+        if (updated == 0) {
+            throw new ResourceNotFoundException("Product", "productId", productId);
+        }
+        productCache.invalidate(productId);
+        return new Status(productId, false, null);
+    }
+
+    /**
+     * Recomputes a hot product's counter from the database once its stock edit commits. New
+     * reservations are held off and the ones in flight are waited for, so every reservation taken
+     * from the counter is either in the database or back in the counter when the stock is read.
+     * The counter is reset in place, so reservations rolled back later still return to it.
+     */
+    public void reseed(Long productId) {
+        TransactionUtil.afterCommit(() -> {
+            counterGuard.writeLock().lock();
+            try {
+                StripedCounter counter = counters.get(productId);
+                if (counter == null) {
+                    return;
+                }
+                awaitDrained(productId, counter);
+                counter.reset(availableInDatabase(productId));
+            } catch (APIException e) {
+                // The edit is committed; the counter keeps its previous stock until the next edit or restart
+                System.err.println("Could not reseed hot inventory for product " + productId + ": " + e.getMessage());
+            } finally {
+                counterGuard.writeLock().unlock();
+            }
+        });
+    }
+
+    public Status status(Long productId) {
+        Long available = available(productId);
+        return new Status(productId, available != null, available);
+    }
+
+    @Scheduled(fixedDelayString = "${inventory.hot.flush-interval-ms:1000}")
+    public void flush() {
+        boolean soldOut = false;
+        for (Map<String, Object> row : jdbcTemplate.queryForList(FLUSH_SQL)) {
+            productCache.invalidate(((Number) row.get("product_id")).longValue());
+            Number quantity = (Number) row.get("quantity");
+            soldOut |= quantity == null || quantity.longValue() <= 0;
+        }
+        // Listing pages are only invalidated when a product sells out, not on every flush
+        if (soldOut) {
+            catalogPageCache.bump();
+        }
+    }
+
+    // Recovery path: apply whatever was reserved before the restart, then seed from the database
+    @EventListener(ApplicationReadyEvent.class)
+    public void recover() {
+        Boolean anyHot = jdbcTemplate.queryForObject("SELECT EXISTS (SELECT 1 FROM products WHERE hot_inventory)", Boolean.class);
+        if (!Boolean.TRUE.equals(anyHot)) {
+            return;
+        }
+        if (!acquireOwnership()) {
+            throw new IllegalStateException("Hot inventory products exist and another instance is serving them; "
+                    + "hot inventory supports a single instance only");
+        }
+        flush();
+        jdbcTemplate.query("SELECT product_id, quantity FROM products WHERE hot_inventory", rs -> {
+            counters.put(rs.getLong("product_id"), new StripedCounter(rs.getLong("quantity")));
+        });
+        if (!counters.isEmpty()) {
+            System.out.println("Hot inventory restored for " + counters.size() + " products");
+        }
+    }
+
+    @PreDestroy
+    synchronized void releaseOwnership() {
+        if (ownerConnection != null) {
+            try {
+                ownerConnection.close();
+            } catch (SQLException e) {
+                System.err.println("Could not release hot inventory ownership: " + e.getMessage());
+            }
+            ownerConnection = null;
+        }
+    }
+
+    // Takes the owner lock on a connection kept open until shutdown; false if another instance holds it
+    private synchronized boolean acquireOwnership() {
+        if (ownerConnection != null) {
+            return true;
+        }
+        Connection connection = null;
+        try {
+            connection = dataSource.getConnection();
+            connection.setAutoCommit(true);
+            try (Statement statement = connection.createStatement();
+                 ResultSet rs = statement.executeQuery(OWNER_LOCK_SQL)) {
+                if (rs.next() && rs.getBoolean(1)) {
+                    ownerConnection = connection;
+                    return true;
+                }
+            }
+            connection.close();
+            return false;
+        } catch (SQLException e) {
+            if (connection != null) {
+                try {
+                    connection.close();
+                } catch (SQLException ignored) {
+                    // already failing
+                }
+            }
+            throw new IllegalStateException("Could not take hot inventory ownership", e);
+        }
+    }
+
+    private static void awaitDrained(Long productId, StripedCounter counter) {
+        long deadline = System.currentTimeMillis() + DRAIN_TIMEOUT_MS;
+        while (counter.inFlight().sum() > 0) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new APIException("Checkouts for product " + productId + " are still in progress; try again");
+            }
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new APIException("Interrupted while disabling hot inventory for product " + productId);
+            }
+        }
+    }
+
+    private long availableInDatabase(Long productId) {
+        List<Long> rows = jdbcTemplate.queryForList(AVAILABLE_SQL, Long.class, productId);
+        return !rows.isEmpty() && rows.get(0) != null ? rows.get(0) : 0;
+    }
+
+    private static void release(List<Map.Entry<Long, Integer>> taken, List<StripedCounter> takenFrom) {
+        for (int i = 0; i < taken.size(); i++) {
+            takenFrom.get(i).give(taken.get(i).getValue());
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.ecommerce.project.service;
+
+import com.ecommerce.project.exceptions.APIException;
+import com.ecommerce.project.model.IdempotencyRecord;
+import com.ecommerce.project.payload.OrderDTO;
+import com.ecommerce.project.repositories.IdempotencyRecordRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.transaction.Transactional;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Remembers the order each Idempotency-Key produced, so a retried checkout gets the original
+ * OrderDTO back instead of placing a second order. Recent keys are answered from a bounded
+ * in-memory map; the idempotency_keys table covers restarts, evictions and other instances.
+ * The key is written in the same transaction as the order, so either both exist or neither.
+ */
+@Component
+public class IdempotencyStore {
+
+    public static final int MAX_KEY_LENGTH = 255;
+
+    private record StoredResponse(String fingerprint, OrderDTO order) {
+    }
+
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${order.idempotency.max-size:10000}")
+    private int maxSize;
+
+    @Value("${order.idempotency.retention-hours:24}")
+    private long retentionHours;
+
+    // Access-ordered, so the eldest entry is the least recently used one. Guarded by itself.
+    private final Map<String, StoredResponse> recent = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, StoredResponse> eldest) {
+            return size() > maxSize;
+        }
+    };
+
+    // Requests currently running per key; a concurrent retry waits for the first one
+    private final Map<String, CompletableFuture<StoredResponse>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * Places the order at most once per (email, key). Without a key the order is simply placed.
+     * The fingerprint describes the request; reusing a key for a different request is rejected.
+     */
+    public OrderDTO placeOnce(String email, String key, String fingerprint, Supplier<OrderDTO> placeOrder) {
+        if (key == null || key.isBlank()) {
+            return placeOrder.get();
+        }
+        if (key.length() > MAX_KEY_LENGTH) {
+            throw new APIException("Idempotency-Key must be at most " + MAX_KEY_LENGTH + " characters");
+        }
+        String storeKey = email + "|" + key;
+
+        StoredResponse stored;
+        synchronized (recent) {
+            stored = recent.get(storeKey);
+        }
+        if (stored != null) {
+            return replay(stored, fingerprint);
+        }
+
+        CompletableFuture<StoredResponse> execution = new CompletableFuture<>();
+        CompletableFuture<StoredResponse> running = inFlight.putIfAbsent(storeKey, execution);
+        if (running != null) {
+            return replay(await(running), fingerprint);
+        }
+
+        try {
+            stored = execute(email, key, storeKey, fingerprint, placeOrder);
+            execution.complete(stored);
+            return replay(stored, fingerprint);
+        } catch (RuntimeException e) {
+            execution.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(storeKey, execution);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${order.idempotency.cleanup-interval-ms:3600000}")
+    @Transactional
+    public void expire() {
+        idempotencyRecordRepository.deleteByCreatedAtBefore(LocalDateTime.now().minusHours(retentionHours));
+    }
+
+    private StoredResponse execute(String email, String key, String storeKey, String fingerprint, Supplier<OrderDTO> placeOrder) {
+        IdempotencyRecord existing = idempotencyRecordRepository.findByEmailAndIdempotencyKey(email, key);
+        if (existing != null) {
+            return remember(storeKey, existing.getRequestFingerprint(), read(existing.getResponse()));
+        }
+
+        try {
+            OrderDTO order = transactionTemplate.execute(status -> {
+                OrderDTO placed = placeOrder.get();
+                // Flushed here so a concurrent duplicate fails on the unique key and rolls back its order
+                idempotencyRecordRepository.saveAndFlush(new IdempotencyRecord(null, email, key, fingerprint,
+                        write(placed), LocalDateTime.now()));
+                return placed;
+            });
+            return remember(storeKey, fingerprint, order);
+        } catch (DataIntegrityViolationException e) {
+            // Another instance placed the order for this key first; answer with its result
+            IdempotencyRecord winner = idempotencyRecordRepository.findByEmailAndIdempotencyKey(email, key);
+            if (winner == null) {
+                throw e;
+            }
+            return remember(storeKey, winner.getRequestFingerprint(), read(winner.getResponse()));
+        }
+    }
+
+    private StoredResponse remember(String storeKey, String fingerprint, OrderDTO order) {
+        StoredResponse stored = new StoredResponse(fingerprint, order);
+        synchronized (recent) {
+            recent.put(storeKey, stored);
+        }
+        return stored;
+    }
+
+    private static OrderDTO replay(StoredResponse stored, String fingerprint) {
+        if (!stored.fingerprint().equals(fingerprint)) {
+            throw new APIException("Idempotency-Key has already been used for a different request");
+        }
+        return stored.order();
+    }
+
+    private String write(OrderDTO order) {
+        try {
+            return objectMapper.writeValueAsString(order);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize order " + order.getOrderId(), e);
+        }
+    }
+
+    private OrderDTO read(String json) {
+        try {
+            return objectMapper.readValue(json, OrderDTO.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not read stored idempotent response", e);
+        }
+    }
+
+    private static StoredResponse await(CompletableFuture<StoredResponse> running) {
+        try {
+            return running.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.ecommerce.project.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Totals for paginated listings without running COUNT(*) on every page request.
+ * Filtered listings reuse a count for a short TTL, keyed by the filter; unfiltered
+ * listings over large tables use the planner's pg_class.reltuples estimate.
+ */
+@Component
+public class ListingTotals {
+
+    public record Total(long count, boolean exact) {
+        public int totalPages(int pageSize) {
+            return (int) Math.ceil((double) count / pageSize);
+        }
+    }
+
+    private record CachedTotal(long count, long expiresAt) {
+    }
+
+    private static final int MAX_ENTRIES = 10_000;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${listing.total.cache-ttl-ms:30000}")
+    private long cacheTtlMs;
+
+    @Value("${listing.total.estimate-threshold:10000}")
+    private long estimateThreshold;
+
+    private final Map<String, CachedTotal> totals = new ConcurrentHashMap<>();
+
+    /**
+     * Count for a filtered listing; exact only when it had to be computed for this request.
+     */
+    public Total cached(String key, LongSupplier counter) {
+        long now = System.currentTimeMillis();
+        CachedTotal cachedTotal = totals.get(key);
+        if (cachedTotal != null && cachedTotal.expiresAt() > now) {
+            return new Total(cachedTotal.count(), false);
+        }
+
+        long count = counter.getAsLong();
+        store(key, new CachedTotal(count, now + cacheTtlMs), now);
+        return new Total(count, true);
+    }
+
+    /**
+     * Count for an unfiltered listing over a whole table. Small tables are counted
+     * (and cached) exactly, since an estimate buys nothing there and may be stale.
+     */
+    public Total estimated(String table, LongSupplier counter) {
+        long estimate = cached("reltuples|" + table, () -> {
+            List<Long> rows = jdbcTemplate.queryForList(
+                    "SELECT reltuples::bigint FROM pg_class WHERE oid = to_regclass(?)", Long.class, table);
+            return rows.isEmpty() || rows.get(0) == null ? -1 : rows.get(0);
+        }).count();
+
+        if (estimate >= estimateThreshold) {
+            return new Total(estimate, false);
+        }
+        // Same "<table>|" prefix as the filtered keys, so evict("products|") drops it too
+        return cached(table + "|", counter);
+    }
+
+    // Drops every cached total whose key starts with the prefix, e.g. after a write to that listing
+    public void evict(String keyPrefix) {
+        totals.keySet().removeIf(key -> key.startsWith(keyPrefix));
+    }
+
+    private void store(String key, CachedTotal cachedTotal, long now) {
+        if (totals.size() >= MAX_ENTRIES) {
+            totals.values().removeIf(entry -> entry.expiresAt() <= now);
+            if (totals.size() >= MAX_ENTRIES) {
+                totals.clear();
+            }
+        }
+        totals.put(key, cachedTotal);
+    }
+}
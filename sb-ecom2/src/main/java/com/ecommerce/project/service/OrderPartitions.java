@@ -0,0 +1,250 @@
+package com.ecommerce.project.service;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Keeps orders and order_items range-partitioned by order_date, one partition per month
+ * (orders_p202611, order_items_p202611, ...).
+ *
+ * Hibernate creates both as plain tables; on startup a plain table is converted in place by
+ * attaching it, data and all, as the partition orders_before_YYYYMM covering everything before
+ * the following month. A daily job creates the upcoming months and moves partitions older than
+ * orders.archive.after-months out of the live tables into the orders_archive schema.
+ *
+ * Queries are bounded by onlineSince(), the start of the oldest partition still attached. While
+ * orders_before_YYYYMM is attached that is no bound at all, so converting the tables hides no
+ * history; the bound only moves once partitions are actually archived.
+ */
+@Component
+public class OrderPartitions {
+
+    private static final String ARCHIVE_SCHEMA = "orders_archive";
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+
+    private static final String LOCK_SQL = "SELECT pg_advisory_xact_lock(hashtext('order_partitions'))";
+
+    // Stands in for the MINVALUE lower bound of an orders_before_YYYYMM partition
+    private static final LocalDate UNBOUNDED_START = LocalDate.of(1, 1, 1);
+
+    private record Index(String name, String columns) {
+    }
+
+    private record PartitionedTable(String name, String idColumn, List<Index> indexes) {
+    }
+
+    // Indexes that live on the parent (keep in sync with schema.sql); dropped from a plain table
+    // before it is attached and rebuilt on the parent, which cascades them to every partition
+    private static final List<PartitionedTable> TABLES = List.of(
+            new PartitionedTable("order_items", "order_item_id", List.of(
+                    new Index("idx_order_items_order", "order_id"))),
+            new PartitionedTable("orders", "order_id", List.of(
+                    new Index("idx_orders_email_date", "email, order_date DESC, order_id DESC"),
+                    new Index("idx_orders_user_date", "user_id, order_date DESC, order_id DESC"))));
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${orders.partitions.months-ahead:3}")
+    private int monthsAhead;
+
+    @Value("${orders.archive.after-months:24}")
+    private int archiveAfterMonths;
+
+    // Read from the catalog at startup and after every archiving run, so queries don't pay for it.
+    // Another instance archiving only leaves it earlier than necessary, which hides nothing.
+    private volatile LocalDate onlineSince;
+
+    // Runs before the application serves requests, so nothing is ever written to an unpartitioned table
+    @PostConstruct
+    void init() {
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.execute(LOCK_SQL);
+            if (isPlainTable("orders") || isPlainTable("order_items")) {
+                convert(YearMonth.now().plusMonths(1));
+            }
+        });
+        createUpcomingPartitions();
+        refreshOnlineSince();
+    }
+
+    /**
+     * Lower bound of the oldest orders partition still attached. Order queries are bounded by it
+     * so the planner never looks beyond the live partitions; everything from it on is online.
+     */
+    public LocalDate onlineSince() {
+        return onlineSince;
+    }
+
+    @Scheduled(cron = "${orders.partitions.maintenance-cron:0 0 3 * * *}")
+    public void maintain() {
+        createUpcomingPartitions();
+        archiveOldPartitions();
+    }
+
+    public void createUpcomingPartitions() {
+        YearMonth current = YearMonth.now();
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.execute(LOCK_SQL);
+            for (PartitionedTable table : TABLES) {
+                YearMonth coveredUntil = legacyBoundary(table.name());
+                for (int i = 0; i <= monthsAhead; i++) {
+                    YearMonth month = current.plusMonths(i);
+                    if (coveredUntil != null && month.isBefore(coveredUntil)) {
+                        continue;
+                    }
+                    jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + partitionName(table.name(), month)
+                            + " PARTITION OF " + table.name()
+                            + " FOR VALUES FROM ('" + month.atDay(1) + "') TO ('" + month.plusMonths(1).atDay(1) + "')");
+                }
+            }
+        });
+    }
+
+    /**
+     * Detaches every partition that ends orders.archive.after-months or more ago and moves it to
+     * the archive schema, where it can be dumped, moved to cheaper storage or dropped independently.
+     */
+    public void archiveOldPartitions() {
+        YearMonth cutoff = YearMonth.now().minusMonths(archiveAfterMonths);
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.execute(LOCK_SQL);
+            jdbcTemplate.execute("CREATE SCHEMA IF NOT EXISTS " + ARCHIVE_SCHEMA);
+            for (PartitionedTable table : TABLES) {
+                for (String partition : partitions(table.name())) {
+                    YearMonth end = partitionEnd(table.name(), partition);
+                    if (end != null && !end.isAfter(cutoff)) {
+                        jdbcTemplate.execute("ALTER TABLE " + table.name() + " DETACH PARTITION " + partition);
+                        jdbcTemplate.execute("ALTER TABLE " + partition + " SET SCHEMA " + ARCHIVE_SCHEMA);
+                        System.out.println("Archived order partition " + partition);
+                    }
+                }
+            }
+        });
+        refreshOnlineSince();
+    }
+
+    private void refreshOnlineSince() {
+        onlineSince = partitions("orders").stream()
+                .map(partition -> partitionStart("orders", partition))
+                .filter(Objects::nonNull)
+                .min(Comparator.naturalOrder())
+                .orElse(YearMonth.now().atDay(1));
+    }
+
+    // One-off conversion of the Hibernate-created plain tables; callers hold a transaction
+    private void convert(YearMonth boundary) {
+        // order_items are partitioned by their order's date, so it has to be filled in first
+        jdbcTemplate.update("UPDATE order_items oi SET order_date = o.order_date "
+                + "FROM orders o WHERE oi.order_id = o.order_id AND oi.order_date IS NULL");
+        jdbcTemplate.update("UPDATE order_items SET order_date = DATE '1970-01-01' WHERE order_date IS NULL");
+        jdbcTemplate.update("UPDATE orders SET order_date = DATE '1970-01-01' WHERE order_date IS NULL");
+
+        for (PartitionedTable table : TABLES) {
+            if (isPlainTable(table.name())) {
+                convert(table, boundary);
+            }
+        }
+    }
+
+    private void convert(PartitionedTable table, YearMonth boundary) {
+        String name = table.name();
+        String id = table.idColumn();
+        String legacy = name + "_before_" + boundary.format(SUFFIX);
+        Long nextId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(" + id + "), 0) + 1 FROM " + name, Long.class);
+
+        // A unique key on a partitioned table must include order_date, so foreign keys into it and its
+        // single-column primary key go; the parent gets (id, order_date) instead
+        List<Map<String, Object>> constraints = jdbcTemplate.queryForList(
+                "SELECT conrelid::regclass::text AS owner, conname FROM pg_constraint "
+                        + "WHERE (contype = 'f' AND confrelid = to_regclass(?)) OR (contype = 'p' AND conrelid = to_regclass(?))",
+                name, name);
+        for (Map<String, Object> constraint : constraints) {
+            jdbcTemplate.execute("ALTER TABLE " + constraint.get("owner") + " DROP CONSTRAINT " + constraint.get("conname"));
+        }
+        for (Index index : table.indexes()) {
+            jdbcTemplate.execute("DROP INDEX IF EXISTS " + index.name());
+        }
+
+        jdbcTemplate.execute("ALTER TABLE " + name + " ALTER COLUMN " + id + " DROP IDENTITY IF EXISTS");
+        jdbcTemplate.execute("ALTER TABLE " + name + " ALTER COLUMN order_date SET NOT NULL");
+        jdbcTemplate.execute("ALTER TABLE " + name + " RENAME TO " + legacy);
+
+        jdbcTemplate.execute("CREATE TABLE " + name + " (LIKE " + legacy + " INCLUDING DEFAULTS) PARTITION BY RANGE (order_date)");
+        jdbcTemplate.execute("ALTER TABLE " + name + " ADD PRIMARY KEY (" + id + ", order_date)");
+        jdbcTemplate.execute("CREATE SEQUENCE " + name + "_" + id + "_seq START WITH " + nextId + " OWNED BY " + name + "." + id);
+        jdbcTemplate.execute("ALTER TABLE " + name + " ALTER COLUMN " + id + " SET DEFAULT nextval('" + name + "_" + id + "_seq')");
+        jdbcTemplate.execute("ALTER TABLE " + name + " ATTACH PARTITION " + legacy
+                + " FOR VALUES FROM (MINVALUE) TO ('" + boundary.atDay(1) + "')");
+        for (Index index : table.indexes()) {
+            jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS " + index.name() + " ON " + name + " (" + index.columns() + ")");
+        }
+
+        System.out.println("Partitioned " + name + " by order_date; existing rows kept in " + legacy);
+    }
+
+    private boolean isPlainTable(String name) {
+        List<String> kinds = jdbcTemplate.queryForList(
+                "SELECT relkind::text FROM pg_class WHERE oid = to_regclass(?)", String.class, name);
+        return !kinds.isEmpty() && kinds.get(0).equals("r");
+    }
+
+    private List<String> partitions(String table) {
+        return jdbcTemplate.queryForList("SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid "
+                + "WHERE i.inhparent = to_regclass(?) ORDER BY c.relname", String.class, table);
+    }
+
+    // Month the attached orders_before_YYYYMM partition runs up to, or null if it has been archived
+    private YearMonth legacyBoundary(String table) {
+        return partitions(table).stream()
+                .filter(partition -> partition.startsWith(table + "_before_"))
+                .map(partition -> partitionEnd(table, partition))
+                .findFirst()
+                .orElse(null);
+    }
+
+    // Inclusive lower bound of a partition, derived from its name
+    private static LocalDate partitionStart(String table, String partition) {
+        String monthPrefix = table + "_p";
+        if (partition.startsWith(table + "_before_")) {
+            return UNBOUNDED_START;
+        }
+        if (partition.startsWith(monthPrefix)) {
+            return YearMonth.parse(partition.substring(monthPrefix.length()), SUFFIX).atDay(1);
+        }
+        return null;
+    }
+
+    // Exclusive upper bound of a partition, derived from its name
+    private static YearMonth partitionEnd(String table, String partition) {
+        String legacyPrefix = table + "_before_";
+        String monthPrefix = table + "_p";
+        if (partition.startsWith(legacyPrefix)) {
+            return YearMonth.parse(partition.substring(legacyPrefix.length()), SUFFIX);
+        }
+        if (partition.startsWith(monthPrefix)) {
+            return YearMonth.parse(partition.substring(monthPrefix.length()), SUFFIX).plusMonths(1);
+        }
+        return null;
+    }
+
+    private static String partitionName(String table, YearMonth month) {
+        return table + "_p" + month.format(SUFFIX);
+    }
+}
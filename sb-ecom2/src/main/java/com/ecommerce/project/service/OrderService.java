@@ -2,8 +2,11 @@ package com.ecommerce.project.service;
 
 import com.ecommerce.project.payload.OrderDTO;
 import com.ecommerce.project.payload.OrderResponse;
+import com.ecommerce.project.util.ExportFormat;
 import jakarta.transaction.Transactional;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
 
 public interface OrderService {
@@ -11,11 +14,17 @@ public interface OrderService {
     OrderDTO placeOrder(String emailId, Long addressId, String paymentMethod, String pgName, String pgPaymentId, String pgStatus, String pgResponseMessage);
 
     // Get user's orders with pagination (by email - for current user)
-    OrderResponse getUserOrders(String email, Integer pageNumber, Integer pageSize, String sortBy, String sortOrder);
+    OrderResponse getUserOrders(String email, Integer pageNumber, Integer pageSize, String sortBy, String sortOrder, boolean includeTotal);
+
+    // Keyset pagination, newest first: "after" is the nextCursor of the previous page (empty for the first page)
+    OrderResponse getUserOrdersAfter(String email, String after, Integer pageSize);
 
     // Get user's orders without pagination (by email - for current user)
     List<OrderDTO> getUserOrdersList(String email);
 
+    // Streams every order line of the user to out, one row at a time
+    void exportUserOrders(String email, ExportFormat format, OutputStream out) throws IOException;
+
     // Get user's orders by status (by email - for current user)
     OrderResponse getUserOrdersByStatus(String email, String orderStatus, Integer pageNumber, Integer pageSize, String sortBy, String sortOrder);
 
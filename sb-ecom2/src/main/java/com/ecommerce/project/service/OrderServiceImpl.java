@@ -1,25 +1,41 @@
 package com.ecommerce.project.service;
 
+import com.ecommerce.project.mapper.DtoMapper;
 import com.ecommerce.project.exceptions.APIException;
 import com.ecommerce.project.exceptions.ResourceNotFoundException;
 import com.ecommerce.project.model.*;
 import com.ecommerce.project.payload.AddressDTO;
 import com.ecommerce.project.payload.OrderDTO;
+import com.ecommerce.project.payload.OrderExportRow;
 import com.ecommerce.project.payload.OrderItemDTO;
 import com.ecommerce.project.payload.OrderResponse;
 import com.ecommerce.project.repositories.*;
+import com.ecommerce.project.repositories.OrderRepository.OrderKey;
+import com.ecommerce.project.util.ExportFormat;
+import com.ecommerce.project.util.OrderCursor;
 import jakarta.transaction.Transactional;
-import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class OrderServiceImpl implements OrderService {
@@ -40,18 +56,48 @@ public class OrderServiceImpl implements OrderService {
     PaymentRepository paymentRepository;
 
     @Autowired
-    CartService cartService;
+    CartItemRepository cartItemRepository;
 
     @Autowired
-    ModelMapper modelMapper;
+    DtoMapper dtoMapper;
 
     @Autowired
     ProductRepository productRepository;
 
+    @Autowired
+    ListingTotals listingTotals;
+
+    @Autowired
+    ProductCache productCache;
+
+    @Autowired
+    CatalogPageCache catalogPageCache;
+
+    @Autowired
+    HotInventory hotInventory;
+
+    @Autowired
+    SalesRollups salesRollups;
+
+    @Autowired
+    OrderPartitions orderPartitions;
+
+    @Autowired
+    ExportWriter exportWriter;
+
+    private static final List<String> ORDER_EXPORT_COLUMNS = List.of("orderId", "orderDate", "orderStatus",
+            "totalAmount", "paymentMethod", "productId", "productName", "quantity", "orderedProductPrice", "discount");
+
     @Override
     @Transactional
     public OrderDTO placeOrder(String emailId, Long addressId, String paymentMethod, String pgName, String pgPaymentId, String pgStatus, String pgResponseMessage) {
-        Cart cart = cartRepository.findCartByEmail(emailId);
+        // A second checkout of the same cart (a double submit) waits here until the first commits,
+        // then reads the cart it emptied instead of ordering the same lines again
+        cartRepository.lockCartItemsByEmail(emailId);
+        cartRepository.lockCartByEmail(emailId);
+
+        // Items and their products in the same query, so building the order lines reads nothing per line
+        Cart cart = cartRepository.findCartWithItemsByEmail(emailId);
         if (cart == null) {
             throw new ResourceNotFoundException("Cart", "email", emailId);
         }
@@ -59,25 +105,30 @@ public class OrderServiceImpl implements OrderService {
         Address address = addressRepository.findById(addressId)
                 .orElseThrow(() -> new ResourceNotFoundException("Address", "addressId", addressId));
 
+        List<CartItem> cartItems = cart.getCartItems();
+        if (cartItems.isEmpty()) {
+            throw new APIException("Cart is empty");
+        }
+
+        reserveStock(cartItems);
+
         Order order = new Order();
         order.setEmail(emailId);
         order.setOrderDate(LocalDate.now());
         order.setTotalAmount(cart.getTotalPrice());
         order.setOrderStatus("Order Accepted !");
         order.setAddress(address);
+        order.setUserId(address.getUser() != null ? address.getUser().getUserId() : null);
 
+        // Linked both ways before saving: the payment cascades the order insert, which then already
+        // carries payment_id instead of needing a follow-up UPDATE
         Payment payment = new Payment(paymentMethod, pgPaymentId, pgStatus, pgResponseMessage, pgName);
         payment.setOrder(order);
-        payment = paymentRepository.save(payment);
         order.setPayment(payment);
+        paymentRepository.save(payment);
 
         Order savedOrder = orderRepository.save(order);
 
-        List<CartItem> cartItems = cart.getCartItems();
-        if (cartItems.isEmpty()) {
-            throw new APIException("Cart is empty");
-        }
-
         List<OrderItem> orderItems = new ArrayList<>();
         for (CartItem cartItem : cartItems) {
             OrderItem orderItem = new OrderItem();
@@ -86,80 +137,144 @@ public class OrderServiceImpl implements OrderService {
             orderItem.setDiscount(cartItem.getDiscount());
             orderItem.setOrderedProductPrice(cartItem.getProductPrice());
             orderItem.setOrder(savedOrder);
+            orderItem.setOrderDate(savedOrder.getOrderDate());
             orderItems.add(orderItem);
         }
 
-        orderItems = orderItemRepository.saveAll(orderItems);
+        orderItems = orderItemRepository.saveAllAndFlush(orderItems);
+        salesRollups.record(savedOrder.getOrderId(), savedOrder.getOrderDate());
 
-        cart.getCartItems().forEach(item -> {
-            int quantity = item.getQuantity();
-            Product product = item.getProduct();
+        // Everything in the cart was ordered; empty it without touching the products
+        cartItemRepository.deleteAllByCartId(cart.getCartId());
+        cart.setTotalPrice(0.0);
 
-            // Reduce stock quantity
-            product.setQuantity(product.getQuantity() - quantity);
+        OrderDTO orderDTO = dtoMapper.toOrderDTO(savedOrder);
+        orderItems.forEach(item -> orderDTO.getOrderItems().add(dtoMapper.toOrderItemDTO(item)));
 
-            // Save product back to the database
-            productRepository.save(product);
+        orderDTO.setAddressId(addressId);
 
-            // Remove items from cart
-            cartService.deleteProductFromCart(cart.getCartId(), item.getProduct().getProductId());
-        });
+        listingTotals.evict("orders|email|" + emailId);
 
-        OrderDTO orderDTO = modelMapper.map(savedOrder, OrderDTO.class);
-        orderItems.forEach(item -> orderDTO.getOrderItems().add(modelMapper.map(item, OrderItemDTO.class)));
+        return orderDTO;
+    }
 
-        orderDTO.setAddressId(addressId);
+    /**
+     * Takes the ordered quantities off stock with conditional UPDATEs, never loading the products.
+     * Throws (rolling back the whole order) if any line cannot be fully reserved.
+     */
+    private void reserveStock(List<CartItem> cartItems) {
+        // Sorted by productId so concurrent checkouts lock rows in the same order and cannot deadlock
+        SortedMap<Long, Integer> quantities = new TreeMap<>();
+        cartItems.forEach(item -> quantities.merge(item.getProduct().getProductId(), item.getQuantity(), Integer::sum));
+
+        // Flash-sale products come out of their in-memory counters, everything else off the row
+        SortedMap<Long, Integer> hotQuantities = new TreeMap<>();
+        SortedMap<Long, Integer> rowQuantities = new TreeMap<>();
+        quantities.forEach((productId, quantity) ->
+                (hotInventory.isHot(productId) ? hotQuantities : rowQuantities).put(productId, quantity));
+
+        // A failure after the hot reservations rolls the transaction back, which releases them
+        List<Long> insufficient = hotInventory.reserve(hotQuantities);
+        if (insufficient.isEmpty()) {
+            insufficient = productRepository.decrementStock(rowQuantities);
+        }
+        if (!insufficient.isEmpty()) {
+            String products = insufficient.stream()
+                    .map(productId -> {
+                        ProductCache.ProductSnapshot snapshot = productCache.get(productId);
+                        return snapshot != null ? snapshot.productName() : "product " + productId;
+                    })
+                    .collect(Collectors.joining(", "));
+            throw new APIException("Not enough stock to place the order for: " + products);
+        }
+        rowQuantities.keySet().forEach(productCache::invalidate);
 
-        return orderDTO;
+        // Cached listing pages may show a stock count that lags behind for their TTL, but a product
+        // that just sold out has to drop out of them now
+        if (!rowQuantities.isEmpty() && !productRepository.findSoldOutIds(rowQuantities.keySet()).isEmpty()) {
+            catalogPageCache.bump();
+        }
     }
 
     @Override
-    public OrderResponse getUserOrders(String email, Integer pageNumber, Integer pageSize, String sortBy, String sortOrder) {
+    public OrderResponse getUserOrders(String email, Integer pageNumber, Integer pageSize, String sortBy, String sortOrder, boolean includeTotal) {
         Sort sortByAndOrder = sortOrder.equalsIgnoreCase("asc")
                 ? Sort.by(sortBy).ascending()
                 : Sort.by(sortBy).descending();
 
         Pageable pageDetails = PageRequest.of(pageNumber, pageSize, sortByAndOrder);
-        Page<Order> pageOrders = orderRepository.findByEmailOrderByOrderDateDesc(email, pageDetails);
-
-        List<Order> orders = pageOrders.getContent();
+        Slice<OrderKey> pageOrders = orderRepository.findKeySliceByEmail(email, orderPartitions.onlineSince(), pageDetails);
 
         // Return empty response instead of throwing exception when no orders found
-        List<OrderDTO> orderDTOs = orders.stream()
-                .map(order -> {
-                    OrderDTO orderDTO = modelMapper.map(order, OrderDTO.class);
-                    orderDTO.setAddressId(order.getAddress().getAddressId());
-                    orderDTO.setAddress(modelMapper.map(order.getAddress(), AddressDTO.class));
-                    return orderDTO;
-                })
-                .toList();
+        List<OrderDTO> orderDTOs = toOrderDTOs(pageOrders.getContent());
 
         OrderResponse orderResponse = new OrderResponse();
         orderResponse.setContent(orderDTOs);
         orderResponse.setPageNumber(pageOrders.getNumber());
         orderResponse.setPageSize(pageOrders.getSize());
-        orderResponse.setTotalElements(pageOrders.getTotalElements());
-        orderResponse.setTotalPages(pageOrders.getTotalPages());
         orderResponse.setLastPage(pageOrders.isLast());
 
+        if (includeTotal) {
+            ListingTotals.Total total = listingTotals.cached("orders|email|" + email,
+                    () -> orderRepository.countByEmailAndOrderDateGreaterThanEqual(email, orderPartitions.onlineSince()));
+            orderResponse.setTotalElements(total.count());
+            orderResponse.setTotalPages(total.totalPages(pageSize));
+            orderResponse.setTotalExact(total.exact());
+        }
+
+        return orderResponse;
+    }
+
+    @Override
+    public OrderResponse getUserOrdersAfter(String email, String after, Integer pageSize) {
+        if (pageSize < 1) {
+            throw new APIException("Page size must be at least 1");
+        }
+
+        // One extra row tells whether there is a next page without counting
+        LocalDate since = orderPartitions.onlineSince();
+        List<OrderKey> orderKeys;
+        if (after == null || after.isEmpty()) {
+            orderKeys = orderRepository.findFirstKeysByEmail(email, since, pageSize + 1);
+        } else {
+            OrderCursor cursor = OrderCursor.decode(after);
+            orderKeys = orderRepository.findKeysByEmailAfter(email, since, cursor.orderDate(), cursor.orderId(), pageSize + 1);
+        }
+        boolean hasNext = orderKeys.size() > pageSize;
+        List<OrderDTO> orderDTOs = toOrderDTOs(hasNext ? orderKeys.subList(0, pageSize) : orderKeys);
+
+        OrderResponse orderResponse = new OrderResponse();
+        orderResponse.setContent(orderDTOs);
+        orderResponse.setPageSize(pageSize);
+        orderResponse.setLastPage(!hasNext);
+        if (hasNext) {
+            OrderDTO lastOrder = orderDTOs.get(orderDTOs.size() - 1);
+            orderResponse.setNextCursor(new OrderCursor(lastOrder.getOrderDate(), lastOrder.getOrderId()).encode());
+        }
         return orderResponse;
     }
 
     @Override
     public List<OrderDTO> getUserOrdersList(String email) {
-        List<Order> orders = orderRepository.findByEmailOrderByOrderDateDesc(email);
+        List<Order> orders = orderRepository.findByEmailOrderByOrderDateDesc(email, orderPartitions.onlineSince());
 
         // Return empty list instead of throwing exception when no orders found
         return orders.stream()
-                .map(order -> {
-                    OrderDTO orderDTO = modelMapper.map(order, OrderDTO.class);
-                    orderDTO.setAddressId(order.getAddress().getAddressId());
-                    orderDTO.setAddress(modelMapper.map(order.getAddress(), AddressDTO.class));
-                    return orderDTO;
-                })
+                .map(dtoMapper::toOrderDTO)
                 .toList();
     }
 
+    @Override
+    @Transactional
+    public void exportUserOrders(String email, ExportFormat format, OutputStream out) throws IOException {
+        try (Stream<OrderExportRow> rows = orderRepository.streamExportRowsByEmail(email, orderPartitions.onlineSince())) {
+            exportWriter.write(rows, format, ORDER_EXPORT_COLUMNS, row -> Arrays.asList(row.getOrderId(),
+                    row.getOrderDate(), row.getOrderStatus(), row.getTotalAmount(), row.getPaymentMethod(),
+                    row.getProductId(), row.getProductName(), row.getQuantity(), row.getOrderedProductPrice(),
+                    row.getDiscount()), out);
+        }
+    }
+
     @Override
     public OrderResponse getUserOrdersByStatus(String email, String orderStatus, Integer pageNumber, Integer pageSize, String sortBy, String sortOrder) {
         Sort sortByAndOrder = sortOrder.equalsIgnoreCase("asc")
@@ -167,19 +282,10 @@ public class OrderServiceImpl implements OrderService {
                 : Sort.by(sortBy).descending();
 
         Pageable pageDetails = PageRequest.of(pageNumber, pageSize, sortByAndOrder);
-        Page<Order> pageOrders = orderRepository.findByEmailAndOrderStatus(email, orderStatus, pageDetails);
-
-        List<Order> orders = pageOrders.getContent();
+        Page<OrderKey> pageOrders = orderRepository.findKeysByEmailAndOrderStatus(email, orderStatus, orderPartitions.onlineSince(), pageDetails);
 
         // Return empty response instead of throwing exception when no orders found
-        List<OrderDTO> orderDTOs = orders.stream()
-                .map(order -> {
-                    OrderDTO orderDTO = modelMapper.map(order, OrderDTO.class);
-                    orderDTO.setAddressId(order.getAddress().getAddressId());
-                    orderDTO.setAddress(modelMapper.map(order.getAddress(), AddressDTO.class));
-                    return orderDTO;
-                })
-                .toList();
+        List<OrderDTO> orderDTOs = toOrderDTOs(pageOrders.getContent());
 
         OrderResponse orderResponse = new OrderResponse();
         orderResponse.setContent(orderDTOs);
@@ -199,19 +305,10 @@ public class OrderServiceImpl implements OrderService {
                 : Sort.by(sortBy).descending();
 
         Pageable pageDetails = PageRequest.of(pageNumber, pageSize, sortByAndOrder);
-        Page<Order> pageOrders = orderRepository.findByUserIdOrderByOrderDateDesc(userId, pageDetails);
-
-        List<Order> orders = pageOrders.getContent();
+        Page<OrderKey> pageOrders = orderRepository.findKeysByUserId(userId, orderPartitions.onlineSince(), pageDetails);
 
         // Return empty response instead of throwing exception when no orders found
-
-        List<OrderDTO> orderDTOs = orders.stream()
-                .map(order -> {
-                    OrderDTO orderDTO = modelMapper.map(order, OrderDTO.class);
-                    orderDTO.setAddressId(order.getAddress().getAddressId());
-                    return orderDTO;
-                })
-                .toList();
+        List<OrderDTO> orderDTOs = toOrderDTOs(pageOrders.getContent());
 
         OrderResponse orderResponse = new OrderResponse();
         orderResponse.setContent(orderDTOs);
@@ -226,15 +323,11 @@ public class OrderServiceImpl implements OrderService {
 
     @Override
     public List<OrderDTO> getOrdersListByUserId(Long userId) {
-        List<Order> orders = orderRepository.findByUserIdOrderByOrderDateDesc(userId);
+        List<Order> orders = orderRepository.findByUserIdOrderByOrderDateDesc(userId, orderPartitions.onlineSince());
 
         // Return empty list instead of throwing exception when no orders found
         return orders.stream()
-                .map(order -> {
-                    OrderDTO orderDTO = modelMapper.map(order, OrderDTO.class);
-                    orderDTO.setAddressId(order.getAddress().getAddressId());
-                    return orderDTO;
-                })
+                .map(dtoMapper::toOrderDTO)
                 .toList();
     }
 
@@ -245,19 +338,10 @@ public class OrderServiceImpl implements OrderService {
                 : Sort.by(sortBy).descending();
 
         Pageable pageDetails = PageRequest.of(pageNumber, pageSize, sortByAndOrder);
-        Page<Order> pageOrders = orderRepository.findByUserIdAndOrderStatus(userId, orderStatus, pageDetails);
-
-        List<Order> orders = pageOrders.getContent();
+        Page<OrderKey> pageOrders = orderRepository.findKeysByUserIdAndOrderStatus(userId, orderStatus, orderPartitions.onlineSince(), pageDetails);
 
         // Return empty response instead of throwing exception when no orders found
-
-        List<OrderDTO> orderDTOs = orders.stream()
-                .map(order -> {
-                    OrderDTO orderDTO = modelMapper.map(order, OrderDTO.class);
-                    orderDTO.setAddressId(order.getAddress().getAddressId());
-                    return orderDTO;
-                })
-                .toList();
+        List<OrderDTO> orderDTOs = toOrderDTOs(pageOrders.getContent());
 
         OrderResponse orderResponse = new OrderResponse();
         orderResponse.setContent(orderDTOs);
@@ -269,4 +353,21 @@ public class OrderServiceImpl implements OrderService {
 
         return orderResponse;
     }
+
+    // Hydrates a page of orders with one fetch-joined query bounded by the page's dates, keeping the page's order
+    private List<OrderDTO> toOrderDTOs(List<OrderKey> orderKeys) {
+        if (orderKeys.isEmpty()) {
+            return List.of();
+        }
+        List<Long> orderIds = orderKeys.stream().map(OrderKey::getOrderId).toList();
+        LocalDate from = orderKeys.stream().map(OrderKey::getOrderDate).min(Comparator.naturalOrder()).orElseThrow();
+        LocalDate to = orderKeys.stream().map(OrderKey::getOrderDate).max(Comparator.naturalOrder()).orElseThrow();
+        Map<Long, Order> orders = orderRepository.findWithDetailsByOrderIdIn(orderIds, from, to).stream()
+                .collect(Collectors.toMap(Order::getOrderId, Function.identity()));
+        return orderIds.stream()
+                .map(orders::get)
+                .filter(Objects::nonNull)
+                .map(dtoMapper::toOrderDTO)
+                .toList();
+    }
 }
@@ -0,0 +1,156 @@
+package com.ecommerce.project.service;
+
+import com.ecommerce.project.model.Product;
+import com.ecommerce.project.payload.ProductDTO;
+import com.ecommerce.project.repositories.ProductRepository;
+import com.ecommerce.project.util.TransactionUtil;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Read-through cache of product snapshots keyed by productId, used where the same products
+ * are read over and over (cart rendering). Entries expire after a TTL and the least recently
+ * used one is dropped once the cache is full. Concurrent misses for one product share a
+ * single database load.
+ */
+@Component
+public class ProductCache {
+
+    /**
+     * Immutable copy of the product columns; never hand out or cache the managed entity.
+     */
+    public record ProductSnapshot(Long productId, String productName, String image, String description,
+                                  Integer quantity, double price, double discount, double specialPrice) {
+
+        static ProductSnapshot of(Product product) {
+            return new ProductSnapshot(product.getProductId(), product.getProductName(), product.getImage(),
+                    product.getDescription(), product.getQuantity(), product.getPrice(),
+                    product.getDiscount(), product.getSpecialPrice());
+        }
+
+        // A fresh, mutable DTO for callers that adjust quantity or image URL
+        public ProductDTO toProductDTO() {
+            return new ProductDTO(productId, productName, image, description, quantity, price, discount, specialPrice);
+        }
+    }
+
+    public record Stats(long hits, long misses, long loads, long evictions, int size) {
+    }
+
+    private record Entry(ProductSnapshot snapshot, long expiresAt) {
+    }
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Value("${product.cache.max-size:10000}")
+    private int maxSize;
+
+    @Value("${product.cache.ttl-ms:60000}")
+    private long ttlMs;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    // Access-ordered, so the eldest entry is the least recently used one. Guarded by itself.
+    private final Map<Long, Entry> entries = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+            if (size() > maxSize) {
+                evictions.increment();
+                return true;
+            }
+            return false;
+        }
+    };
+
+    // Loads in progress; an invalidation removes the future so its result is not cached
+    private final Map<Long, CompletableFuture<ProductSnapshot>> loading = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the product snapshot, loading it on a miss, or null if the product does not exist.
+     */
+    public ProductSnapshot get(Long productId) {
+        long now = System.currentTimeMillis();
+        synchronized (entries) {
+            Entry entry = entries.get(productId);
+            if (entry != null) {
+                if (entry.expiresAt() > now) {
+                    hits.increment();
+                    return entry.snapshot();
+                }
+                entries.remove(productId);
+                evictions.increment();
+            }
+        }
+        misses.increment();
+
+        CompletableFuture<ProductSnapshot> load = new CompletableFuture<>();
+        CompletableFuture<ProductSnapshot> inFlight = loading.putIfAbsent(productId, load);
+        if (inFlight != null) {
+            return await(inFlight);
+        }
+
+        try {
+            ProductSnapshot snapshot = productRepository.findById(productId)
+                    .map(ProductSnapshot::of)
+                    .orElse(null);
+            loads.increment();
+            synchronized (entries) {
+                if (snapshot != null && loading.get(productId) == load) {
+                    entries.put(productId, new Entry(snapshot, System.currentTimeMillis() + ttlMs));
+                }
+            }
+            load.complete(snapshot);
+            return snapshot;
+        } catch (RuntimeException e) {
+            load.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(productId, load);
+        }
+    }
+
+    /**
+     * Drops the product now and again once the surrounding transaction commits, so a reader
+     * cannot re-cache the old row between the write and its commit.
+     */
+    public void invalidate(Long productId) {
+        evict(productId);
+        TransactionUtil.afterCommit(() -> evict(productId));
+    }
+
+    public Stats stats() {
+        synchronized (entries) {
+            return new Stats(hits.sum(), misses.sum(), loads.sum(), evictions.sum(), entries.size());
+        }
+    }
+
+    private void evict(Long productId) {
+        synchronized (entries) {
+            entries.remove(productId);
+            loading.remove(productId);
+        }
+    }
+
+    private static ProductSnapshot await(CompletableFuture<ProductSnapshot> load) {
+        try {
+            return load.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,293 @@
+package com.ecommerce.project.service;
+
+import com.ecommerce.project.model.Product;
+import com.ecommerce.project.repositories.ProductRepository;
+import com.ecommerce.project.util.TransactionUtil;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory inverted index over product name, description and category name, ranked with BM25.
+ * Built once at startup and kept current by ProductServiceImpl and CategoryServiceImpl; the database is only hit
+ * afterwards to hydrate the page of product IDs a query returns.
+ */
+@Component
+public class ProductSearchIndex {
+
+    public enum Operator { AND, OR }
+
+    public record SearchHits(List<Long> productIds, long totalHits) {
+    }
+
+    private record Document(Long categoryId, int length, Map<String, Integer> termFrequencies) {
+    }
+
+    private record ScoredDocument(Long productId, double score) {
+    }
+
+    // Standard BM25 parameters
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    private static final Comparator<ScoredDocument> BY_RANK = Comparator
+            .comparingDouble(ScoredDocument::score).reversed()
+            .thenComparing(ScoredDocument::productId);
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // term -> (productId -> term frequency)
+    private final Map<String, Map<Long, Integer>> postings = new HashMap<>();
+    private final Map<Long, Document> documents = new HashMap<>();
+    private long totalLength;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        List<Object[]> rows = productRepository.findAllSearchDocuments();
+
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            documents.clear();
+            totalLength = 0;
+            for (Object[] row : rows) {
+                put((Long) row[0], (String) row[1], (String) row[2], (Long) row[3], (String) row[4]);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        System.out.println("Product search index built with " + rows.size() + " products");
+    }
+
+    /**
+     * Adds or replaces a product. Inside a transaction the change is applied after commit,
+     * so a rolled back write never becomes searchable.
+     */
+    public void indexProduct(Product product) {
+        Long productId = product.getProductId();
+        String productName = product.getProductName();
+        String description = product.getDescription();
+        Long categoryId = product.getCategory() != null ? product.getCategory().getCategoryId() : null;
+        String categoryName = product.getCategory() != null ? product.getCategory().getCategoryName() : null;
+
+        TransactionUtil.afterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                remove(productId);
+                put(productId, productName, description, categoryId, categoryName);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    public void removeProduct(Long productId) {
+        TransactionUtil.afterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                remove(productId);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    /**
+     * Re-reads every product of the category once the surrounding transaction commits, e.g. after
+     * the category was renamed; products no longer in it (deleted with the category) are dropped.
+     */
+    public void reindexCategory(Long categoryId) {
+        TransactionUtil.afterCommit(() -> {
+            List<Object[]> rows = productRepository.findSearchDocumentsByCategoryId(categoryId);
+            lock.writeLock().lock();
+            try {
+                documents.entrySet().stream()
+                        .filter(entry -> categoryId.equals(entry.getValue().categoryId()))
+                        .map(Map.Entry::getKey)
+                        .toList()
+                        .forEach(this::remove);
+                for (Object[] row : rows) {
+                    remove((Long) row[0]);
+                    put((Long) row[0], (String) row[1], (String) row[2], (Long) row[3], (String) row[4]);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    /**
+     * Returns the requested page of product IDs ordered by BM25 score (ties broken by productId).
+     * With AND every term has to match, with OR any term does; categoryId may be null.
+     */
+    public SearchHits search(String text, Operator operator, Long categoryId, int pageNumber, int pageSize) {
+        List<String> terms = tokenize(text).stream().distinct().toList();
+        if (terms.isEmpty() || pageSize <= 0) {
+            return new SearchHits(List.of(), 0);
+        }
+
+        lock.readLock().lock();
+        try {
+            List<Map<Long, Integer>> termPostings = new ArrayList<>(terms.size());
+            for (String term : terms) {
+                Map<Long, Integer> list = postings.get(term);
+                if (list == null) {
+                    if (operator == Operator.AND) {
+                        return new SearchHits(List.of(), 0);
+                    }
+                    continue;
+                }
+                termPostings.add(list);
+            }
+            if (termPostings.isEmpty()) {
+                return new SearchHits(List.of(), 0);
+            }
+
+            int documentCount = documents.size();
+            double averageLength = (double) totalLength / documentCount;
+
+            Map<Long, Double> scores;
+            if (operator == Operator.AND) {
+                // Drive the intersection from the rarest term
+                termPostings.sort(Comparator.comparingInt(Map::size));
+                scores = new HashMap<>();
+                for (Long productId : termPostings.get(0).keySet()) {
+                    Document document = documents.get(productId);
+                    if (!matchesCategory(document, categoryId)) {
+                        continue;
+                    }
+                    double score = 0;
+                    boolean matchesAll = true;
+                    for (Map<Long, Integer> list : termPostings) {
+                        Integer frequency = list.get(productId);
+                        if (frequency == null) {
+                            matchesAll = false;
+                            break;
+                        }
+                        score += termScore(frequency, list.size(), document.length(), documentCount, averageLength);
+                    }
+                    if (matchesAll) {
+                        scores.put(productId, score);
+                    }
+                }
+            } else {
+                scores = new HashMap<>();
+                for (Map<Long, Integer> list : termPostings) {
+                    for (Map.Entry<Long, Integer> posting : list.entrySet()) {
+                        Document document = documents.get(posting.getKey());
+                        if (!matchesCategory(document, categoryId)) {
+                            continue;
+                        }
+                        double score = termScore(posting.getValue(), list.size(), document.length(), documentCount, averageLength);
+                        scores.merge(posting.getKey(), score, Double::sum);
+                    }
+                }
+            }
+
+            return new SearchHits(topPage(scores, pageNumber, pageSize), scores.size());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        return Arrays.stream(text.toLowerCase().split("[^\\p{L}\\p{N}]+"))
+                .filter(term -> !term.isEmpty())
+                .toList();
+    }
+
+    // Callers must hold the write lock
+    private void put(Long productId, String productName, String description, Long categoryId, String categoryName) {
+        List<String> tokens = new ArrayList<>();
+        tokens.addAll(tokenize(productName));
+        tokens.addAll(tokenize(description));
+        tokens.addAll(tokenize(categoryName));
+
+        Map<String, Integer> termFrequencies = new HashMap<>();
+        for (String token : tokens) {
+            termFrequencies.merge(token, 1, Integer::sum);
+        }
+        termFrequencies.forEach((term, frequency) ->
+                postings.computeIfAbsent(term, t -> new HashMap<>()).put(productId, frequency));
+
+        documents.put(productId, new Document(categoryId, tokens.size(), termFrequencies));
+        totalLength += tokens.size();
+    }
+
+    // Callers must hold the write lock
+    private void remove(Long productId) {
+        Document document = documents.remove(productId);
+        if (document == null) {
+            return;
+        }
+        totalLength -= document.length();
+        document.termFrequencies().keySet().forEach(term -> {
+            Map<Long, Integer> list = postings.get(term);
+            if (list != null) {
+                list.remove(productId);
+                if (list.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        });
+    }
+
+    private static boolean matchesCategory(Document document, Long categoryId) {
+        return categoryId == null || categoryId.equals(document.categoryId());
+    }
+
+    private static double termScore(int frequency, int documentFrequency, int documentLength,
+                                    int documentCount, double averageLength) {
+        double idf = Math.log(1 + (documentCount - documentFrequency + 0.5) / (documentFrequency + 0.5));
+        double norm = K1 * (1 - B + B * documentLength / averageLength);
+        return idf * (frequency * (K1 + 1)) / (frequency + norm);
+    }
+
+    // Keeps only the best (pageNumber + 1) * pageSize hits in a bounded heap, then slices out the page
+    private static List<Long> topPage(Map<Long, Double> scores, int pageNumber, int pageSize) {
+        long limit = (long) (pageNumber + 1) * pageSize;
+        if (scores.isEmpty() || limit - pageSize >= scores.size()) {
+            return List.of();
+        }
+
+        PriorityQueue<ScoredDocument> heap = new PriorityQueue<>(BY_RANK.reversed());
+        scores.forEach((productId, score) -> {
+            heap.offer(new ScoredDocument(productId, score));
+            if (heap.size() > limit) {
+                heap.poll();
+            }
+        });
+
+        List<ScoredDocument> ranked = new ArrayList<>(heap);
+        ranked.sort(BY_RANK);
+        return ranked.subList(pageNumber * pageSize, ranked.size()).stream()
+                .map(ScoredDocument::productId)
+                .toList();
+    }
+
+}
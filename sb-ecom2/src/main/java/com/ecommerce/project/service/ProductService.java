@@ -1,11 +1,14 @@
 package com.ecommerce.project.service;
 
+import com.ecommerce.project.payload.ProductBatchResponse;
 import com.ecommerce.project.payload.ProductDTO;
 import com.ecommerce.project.payload.ProductResponse;
+import com.ecommerce.project.util.ExportFormat;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
 
 public interface ProductService {
@@ -13,12 +16,22 @@ public interface ProductService {
 
     ProductDTO addProductWithImage(Long categoryId, ProductDTO product, MultipartFile image, Authentication auth) throws IOException;
 
-    ProductResponse getAllProducts(Integer pageNumber, Integer pageSize, String sortBy, String sortOrder, String keyword, String category);
+    // includeTotal=false skips totals entirely; otherwise they may be estimated (see ProductResponse.totalExact)
+    ProductResponse getAllProducts(Integer pageNumber, Integer pageSize, String sortBy, String sortOrder, String keyword, String category, boolean includeTotal);
+
+    // Keyset pagination: "after" is the nextCursor of the previous page (empty for the first page)
+    ProductResponse getAllProductsAfter(String after, Integer pageSize, String sortBy, String sortOrder, String keyword, String category);
 
     ProductResponse searchByCategory(Long categoryId, Integer pageNumber, Integer pageSize, String sortBy, String sortOrder);
 
     ProductResponse searchProductByKeyword(String keyword, Integer pageNumber, Integer pageSize, String sortBy, String sortOrder);
 
+    // Look up many products in one query, in request order, reporting IDs that do not exist
+    ProductBatchResponse getProductsByIds(List<Long> productIds);
+
+    // Search the in-memory BM25 index; operator is AND or OR, category is an optional category name
+    ProductResponse searchProductIndex(String query, String operator, String category, Integer pageNumber, Integer pageSize);
+
     ProductDTO updateProduct(Long productId,
                              ProductDTO productDTO);
 
@@ -31,11 +44,14 @@ public interface ProductService {
                                   MultipartFile image) throws IOException;
 
     // Get user's products with pagination (by email - for current user)
-    ProductResponse getUserProducts(String email, Integer pageNumber, Integer pageSize, String sortBy, String sortOrder);
+    ProductResponse getUserProducts(String email, Integer pageNumber, Integer pageSize, String sortBy, String sortOrder, boolean includeTotal);
 
     // Get user's products without pagination (by email - for current user)
     List<ProductDTO> getUserProductsList(String email);
 
+    // Streams every product of the seller to out, one row at a time
+    void exportUserProducts(String email, ExportFormat format, OutputStream out) throws IOException;
+
     // Get count of user's products (by email - for current user)
     Long getUserProductsCount(String email);
 
@@ -48,4 +64,15 @@ public interface ProductService {
     // Get count of products by user ID (for admin or specific user access)
     Long getProductsCountByUserId(Long userId);
 
+    // Switch a product in or out of flash-sale (in-memory counter) inventory mode
+    HotInventory.Status setHotInventory(Long productId, boolean enabled);
+
+    HotInventory.Status getHotInventory(Long productId);
+
+    // Hit/miss/eviction counters of the product snapshot cache
+    ProductCache.Stats getProductCacheStats();
+
+    // Progress of background cart repricing after price/discount changes
+    CartRepricer.Stats getCartRepricingStats();
+
 }
@@ -1,5 +1,11 @@
 package com.ecommerce.project.service;
 
+import com.ecommerce.project.mapper.DtoMapper;
+import com.ecommerce.project.config.AppConstants;
+import com.ecommerce.project.config.SearchFunctionContributor;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Path;
+import org.hibernate.query.criteria.HibernateCriteriaBuilder;
 import jakarta.transaction.Transactional;
 import org.springframework.security.access.AccessDeniedException;
 import com.ecommerce.project.exceptions.APIException;
@@ -7,19 +13,21 @@ import com.ecommerce.project.exceptions.ResourceNotFoundException;
 import com.ecommerce.project.model.Category;
 import com.ecommerce.project.model.Product;
 import com.ecommerce.project.model.User;
+import com.ecommerce.project.payload.ProductBatchResponse;
 import com.ecommerce.project.payload.ProductDTO;
 import com.ecommerce.project.payload.ProductResponse;
-import com.ecommerce.project.repositories.CartRepository;
 import com.ecommerce.project.repositories.CategoryRepository;
 import com.ecommerce.project.repositories.ProductRepository;
 import com.ecommerce.project.repositories.UserRepository;
 import com.ecommerce.project.security.services.UserDetailsImpl;
-import org.modelmapper.ModelMapper;
+import com.ecommerce.project.util.ExportFormat;
+import com.ecommerce.project.util.ProductCursor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.security.core.Authentication;
@@ -29,13 +37,18 @@ import org.springframework.web.multipart.MultipartFile;
 
 
 import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class ProductServiceImpl implements ProductService {
-    @Autowired
-    private CartRepository cartRepository;
-
     @Autowired
     private CartService cartService;
 
@@ -46,7 +59,7 @@ public class ProductServiceImpl implements ProductService {
     private CategoryRepository categoryRepository;
 
     @Autowired
-    private ModelMapper modelMapper;
+    private DtoMapper dtoMapper;
 
     @Autowired
     private FileService fileService;
@@ -57,9 +70,36 @@ public class ProductServiceImpl implements ProductService {
     @Value("${image.base.url}")
     private String imageBaseUrl;
 
+    @Autowired
+    private ExportWriter exportWriter;
+
+    private static final List<String> PRODUCT_EXPORT_COLUMNS = List.of("productId", "productName", "description",
+            "quantity", "price", "discount", "specialPrice", "image");
+
+    @Value("${product.batch.max-size:100}")
+    private int maxBatchSize;
+
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private ProductSearchIndex productSearchIndex;
+
+    @Autowired
+    private ListingTotals listingTotals;
+
+    @Autowired
+    private ProductCache productCache;
+
+    @Autowired
+    private CatalogPageCache catalogPageCache;
+
+    @Autowired
+    private HotInventory hotInventory;
+
+    @Autowired
+    private CartRepricer cartRepricer;
+
     /**
      * Helper method to get the current authenticated user from SecurityContext
      */
@@ -135,7 +175,7 @@ public class ProductServiceImpl implements ProductService {
                     .orElseThrow(() -> new ResourceNotFoundException("User","id",sellerId));
 
             // Map DTO to entity
-            Product product = modelMapper.map(productDTO, Product.class);
+            Product product = dtoMapper.toProduct(productDTO);
 
             // Set required relationships
             product.setUser(seller);
@@ -151,9 +191,12 @@ public class ProductServiceImpl implements ProductService {
 
             // Save product
             Product savedProduct = productRepository.save(product);
+            productSearchIndex.indexProduct(savedProduct);
+            listingTotals.evict("products|");
+            catalogPageCache.bump();
 
             // Map back to DTO
-            return modelMapper.map(savedProduct, ProductDTO.class);
+            return dtoMapper.toProductDTO(savedProduct);
 
         } catch (Exception e) {
             // Log the error for debugging
@@ -194,7 +237,7 @@ public class ProductServiceImpl implements ProductService {
                     .orElseThrow(() -> new ResourceNotFoundException("User","id",sellerId));
 
             // Map DTO to entity
-            Product product = modelMapper.map(productDTO, Product.class);
+            Product product = dtoMapper.toProduct(productDTO);
 
             // Set required relationships
             product.setUser(seller);
@@ -216,9 +259,12 @@ public class ProductServiceImpl implements ProductService {
 
             // Save product
             Product savedProduct = productRepository.save(product);
+            productSearchIndex.indexProduct(savedProduct);
+            listingTotals.evict("products|");
+            catalogPageCache.bump();
 
             // Map back to DTO and set full image URL
-            ProductDTO result = modelMapper.map(savedProduct, ProductDTO.class);
+            ProductDTO result = dtoMapper.toProductDTO(savedProduct);
             result.setImage(constructImageUrl(savedProduct.getImage()));
 
             return result;
@@ -239,43 +285,165 @@ public class ProductServiceImpl implements ProductService {
     }
 
     @Override
-    public ProductResponse getAllProducts(Integer pageNumber, Integer pageSize, String sortBy, String sortOrder, String keyword, String category) {
-        Sort sortByAndOrder = sortOrder.equalsIgnoreCase("asc")
-                ? Sort.by(sortBy).ascending()
-                : Sort.by(sortBy).descending();
+    public ProductResponse getAllProducts(Integer pageNumber, Integer pageSize, String sortBy, String sortOrder, String keyword, String category, boolean includeTotal) {
+        String tsQuery = toPrefixTsQuery(keyword);
+        Pageable pageDetails = searchPageable(tsQuery, pageNumber, pageSize, sortBy, sortOrder);
 
-        Pageable pageDetails = PageRequest.of(pageNumber, pageSize, sortByAndOrder);
+        Specification<Product> spec = productFilter(tsQuery, category, pageDetails.getSort().isUnsorted());
+        Slice<ProductDTO> pageProducts = productRepository.findSlice(spec, pageDetails);
+
+        List<ProductDTO> productDTOS = pageProducts.getContent();
+        productDTOS.forEach(productDTO -> productDTO.setImage(constructImageUrl(productDTO.getImage())));
+
+        ProductResponse productResponse = new ProductResponse();
+        productResponse.setContent(productDTOS);
+        productResponse.setPageNumber(pageProducts.getNumber());
+        productResponse.setPageSize(pageProducts.getSize());
+        productResponse.setLastPage(pageProducts.isLast());
+
+        if (includeTotal) {
+            ListingTotals.Total total = tsQuery == null && (category == null || category.isEmpty())
+                    ? listingTotals.estimated("products", productRepository::count)
+                    : listingTotals.cached("products|" + tsQuery + "|" + category, () -> productRepository.count(spec));
+            productResponse.setTotalElements(total.count());
+            productResponse.setTotalPages(total.totalPages(pageSize));
+            productResponse.setTotalExact(total.exact());
+        }
+        return productResponse;
+    }
+
+    @Override
+    public ProductResponse getAllProductsAfter(String after, Integer pageSize, String sortBy, String sortOrder, String keyword, String category) {
+        if (pageSize < 1) {
+            throw new APIException("Page size must be at least 1");
+        }
+        if (AppConstants.SORT_BY_RELEVANCE.equalsIgnoreCase(sortBy)) {
+            // A ts_rank score is not a stable keyset; page search results by productId instead
+            sortBy = AppConstants.SORT_PRODUCTS_BY;
+        }
+        if (!ProductCursor.SORTABLE_FIELDS.contains(sortBy)) {
+            throw new APIException("Cursor pagination does not support sorting by " + sortBy);
+        }
+        boolean ascending = sortOrder.equalsIgnoreCase("asc");
+
+        Specification<Product> spec = productFilter(toPrefixTsQuery(keyword), category, false);
+        if (after != null && !after.isEmpty()) {
+            ProductCursor cursor = ProductCursor.decode(after);
+            if (!cursor.sortBy().equals(sortBy) || cursor.ascending() != ascending) {
+                throw new APIException("Pagination cursor does not match the requested sort order");
+            }
+            spec = spec.and(afterCursor(cursor));
+        }
+
+        Sort sort = sortBy.equals("productId") ? Sort.by("productId") : Sort.by(sortBy, "productId");
+        Sort sortByAndOrder = ascending ? sort.ascending() : sort.descending();
+
+        // Always the first "page" after the cursor; the slice reads one extra row instead of counting
+        Slice<ProductDTO> slice = productRepository.findSlice(spec, PageRequest.of(0, pageSize, sortByAndOrder));
+        List<ProductDTO> productDTOS = slice.getContent();
+
+        ProductResponse productResponse = new ProductResponse();
+        productResponse.setPageSize(pageSize);
+        productResponse.setLastPage(slice.isLast());
+        if (slice.hasNext()) {
+            ProductDTO lastProduct = productDTOS.get(productDTOS.size() - 1);
+            productResponse.setNextCursor(ProductCursor.of(sortBy, ascending, lastProduct).encode());
+        }
+
+        productDTOS.forEach(productDTO -> productDTO.setImage(constructImageUrl(productDTO.getImage())));
+        productResponse.setContent(productDTOS);
+        return productResponse;
+    }
+
+    /**
+     * Keyword (full-text) and category filters shared by the offset and cursor listings.
+     */
+    private Specification<Product> productFilter(String tsQuery, String category, boolean rankByRelevance) {
         Specification<Product> spec = Specification.where(null);
-        if (keyword != null && !keyword.isEmpty()) {
-            spec = spec.and((root, query, criteriaBuilder) ->
-                    criteriaBuilder.like(criteriaBuilder.lower(root.get("productName")), "%" + keyword.toLowerCase() + "%"));
+        if (tsQuery != null) {
+            spec = spec.and(keywordSpecification(tsQuery, rankByRelevance));
         }
 
         if (category != null && !category.isEmpty()) {
             spec = spec.and((root, query, criteriaBuilder) ->
                     criteriaBuilder.like(root.get("category").get("categoryName"), category));
         }
+        return spec;
+    }
 
-        Page<Product> pageProducts = productRepository.findAll(spec, pageDetails);
+    /**
+     * Rows strictly after the cursor in (sortBy, productId) order. Written as a row-value comparison so it
+     * is a single range seek on the (key, product_id) index, like OrderRepository.findKeysByEmailAfter.
+     */
+    private Specification<Product> afterCursor(ProductCursor cursor) {
+        return (root, query, criteriaBuilder) -> {
+            Path<Long> id = root.get("productId");
+            if (cursor.sortBy().equals("productId")) {
+                return cursor.ascending()
+                        ? criteriaBuilder.greaterThan(id, cursor.productId())
+                        : criteriaBuilder.lessThan(id, cursor.productId());
+            }
 
-        List<Product> products = pageProducts.getContent();
+            // Cursor values are bound as parameters (value(), not literal()) so every page shares one statement
+            HibernateCriteriaBuilder builder = (HibernateCriteriaBuilder) criteriaBuilder;
+            Path<Object> key = root.get(cursor.sortBy());
+            return builder.isTrue(builder.function(
+                    cursor.ascending() ? SearchFunctionContributor.ROW_AFTER : SearchFunctionContributor.ROW_BEFORE,
+                    Boolean.class, key, id, builder.value(cursor.value()), builder.value(cursor.productId())));
+        };
+    }
 
-        List<ProductDTO> productDTOS = products.stream()
-                .map(product -> {
-                    ProductDTO productDTO = modelMapper.map(product, ProductDTO.class);
-                    productDTO.setImage(constructImageUrl(product.getImage()));
-                    return productDTO;
-                })
-                .toList();
+    /**
+     * Turns raw user input into a prefix-matching tsquery, e.g. "red sho" becomes "red:* & sho:*".
+     * Returns null when the input contains no searchable terms.
+     */
+    private static String toPrefixTsQuery(String keyword) {
+        if (keyword == null) {
+            return null;
+        }
+        String tsQuery = Arrays.stream(keyword.toLowerCase().split("[^\\p{L}\\p{N}]+"))
+                .filter(term -> !term.isEmpty())
+                .map(term -> term + ":*")
+                .collect(Collectors.joining(" & "));
+        return tsQuery.isEmpty() ? null : tsQuery;
+    }
 
-        ProductResponse productResponse = new ProductResponse();
-        productResponse.setContent(productDTOS);
-        productResponse.setPageNumber(pageProducts.getNumber());
-        productResponse.setPageSize(pageProducts.getSize());
-        productResponse.setTotalElements(pageProducts.getTotalElements());
-        productResponse.setTotalPages(pageProducts.getTotalPages());
-        productResponse.setLastPage(pageProducts.isLast());
-        return productResponse;
+    /**
+     * Full-text match on name + description, served by the idx_products_search GIN index.
+     * When rankByRelevance is set the page is ordered by ts_rank instead of a column sort.
+     */
+    private Specification<Product> keywordSpecification(String tsQuery, boolean rankByRelevance) {
+        return (root, query, criteriaBuilder) -> {
+            Expression<String> name = root.get("productName");
+            Expression<String> description = root.get("description");
+            Expression<String> terms = criteriaBuilder.literal(tsQuery);
+
+            if (rankByRelevance && !Long.class.equals(query.getResultType())) {
+                query.orderBy(
+                        criteriaBuilder.desc(criteriaBuilder.function(SearchFunctionContributor.FTS_RANK, Double.class, name, description, terms)),
+                        criteriaBuilder.asc(root.get("productId")));
+            }
+
+            return criteriaBuilder.isTrue(
+                    criteriaBuilder.function(SearchFunctionContributor.FTS_MATCH, Boolean.class, name, description, terms));
+        };
+    }
+
+    /**
+     * Relevance ordering only makes sense for a keyword search; otherwise fall back to the default column sort.
+     */
+    private Pageable searchPageable(String tsQuery, Integer pageNumber, Integer pageSize, String sortBy, String sortOrder) {
+        if (AppConstants.SORT_BY_RELEVANCE.equalsIgnoreCase(sortBy)) {
+            if (tsQuery != null) {
+                return PageRequest.of(pageNumber, pageSize);
+            }
+            sortBy = AppConstants.SORT_PRODUCTS_BY;
+        }
+
+        Sort sortByAndOrder = sortOrder.equalsIgnoreCase("asc")
+                ? Sort.by(sortBy).ascending()
+                : Sort.by(sortBy).descending();
+        return PageRequest.of(pageNumber, pageSize, sortByAndOrder);
     }
 
     private String constructImageUrl(String imageName) {
@@ -293,18 +461,14 @@ public class ProductServiceImpl implements ProductService {
                 : Sort.by(sortBy).descending();
 
         Pageable pageDetails = PageRequest.of(pageNumber, pageSize, sortByAndOrder);
-        Page<Product> pageProducts = productRepository.findByCategoryOrderByPriceAsc(category, pageDetails);
+        Page<ProductDTO> pageProducts = productRepository.findByCategoryOrderByPriceAsc(category, pageDetails);
 
-        List<Product> products = pageProducts.getContent();
+        List<ProductDTO> productDTOS = pageProducts.getContent();
 
-        if(products.isEmpty()){
+        if(productDTOS.isEmpty()){
             throw new APIException(category.getCategoryName() + " category does not have any products");
         }
 
-        List<ProductDTO> productDTOS = products.stream()
-                .map(product -> modelMapper.map(product, ProductDTO.class))
-                .toList();
-
         ProductResponse productResponse = new ProductResponse();
         productResponse.setContent(productDTOS);
         productResponse.setPageNumber(pageProducts.getNumber());
@@ -317,38 +481,116 @@ public class ProductServiceImpl implements ProductService {
 
     @Override
     public ProductResponse searchProductByKeyword(String keyword, Integer pageNumber, Integer pageSize, String sortBy, String sortOrder) {
-        Sort sortByAndOrder = sortOrder.equalsIgnoreCase("asc")
-                ? Sort.by(sortBy).ascending()
-                : Sort.by(sortBy).descending();
+        String tsQuery = toPrefixTsQuery(keyword);
+        if (tsQuery == null) {
+            throw new APIException("Products not found with keyword: " + keyword);
+        }
 
-        Pageable pageDetails = PageRequest.of(pageNumber, pageSize, sortByAndOrder);
-        Page<Product> pageProducts = productRepository.findByProductNameLikeIgnoreCase('%' + keyword + '%', pageDetails);
+        Pageable pageDetails = searchPageable(tsQuery, pageNumber, pageSize, sortBy, sortOrder);
+        Specification<Product> spec = keywordSpecification(tsQuery, pageDetails.getSort().isUnsorted());
+        Slice<ProductDTO> pageProducts = productRepository.findSlice(spec, pageDetails);
 
-        List<Product> products = pageProducts.getContent();
-        List<ProductDTO> productDTOS = products.stream()
-                .map(product -> modelMapper.map(product, ProductDTO.class))
-                .toList();
+        List<ProductDTO> productDTOS = pageProducts.getContent();
 
-        if(products.isEmpty()){
+        if(productDTOS.isEmpty()){
             throw new APIException("Products not found with keyword: " + keyword);
         }
 
+        ListingTotals.Total total = listingTotals.cached("products|" + tsQuery + "|null", () -> productRepository.count(spec));
+
         ProductResponse productResponse = new ProductResponse();
         productResponse.setContent(productDTOS);
         productResponse.setPageNumber(pageProducts.getNumber());
         productResponse.setPageSize(pageProducts.getSize());
-        productResponse.setTotalElements(pageProducts.getTotalElements());
-        productResponse.setTotalPages(pageProducts.getTotalPages());
+        productResponse.setTotalElements(total.count());
+        productResponse.setTotalPages(total.totalPages(pageSize));
+        productResponse.setTotalExact(total.exact());
         productResponse.setLastPage(pageProducts.isLast());
         return productResponse;
     }
 
+    @Override
+    public ProductBatchResponse getProductsByIds(List<Long> productIds) {
+        List<Long> requestedIds = productIds.stream()
+                .filter(Objects::nonNull)
+                .distinct()
+                .toList();
+        if (requestedIds.size() > maxBatchSize) {
+            throw new APIException("At most " + maxBatchSize + " products can be requested at once");
+        }
+        if (requestedIds.isEmpty()) {
+            return new ProductBatchResponse(List.of(), List.of());
+        }
+
+        Map<Long, ProductDTO> productsById = productRepository.findDTOsByProductIdIn(requestedIds).stream()
+                .collect(Collectors.toMap(ProductDTO::getProductId, Function.identity()));
+
+        List<ProductDTO> productDTOS = new ArrayList<>(productsById.size());
+        List<Long> missingIds = new ArrayList<>();
+        for (Long productId : requestedIds) {
+            ProductDTO productDTO = productsById.get(productId);
+            if (productDTO == null) {
+                missingIds.add(productId);
+                continue;
+            }
+            productDTO.setImage(constructImageUrl(productDTO.getImage()));
+            productDTOS.add(productDTO);
+        }
+        return new ProductBatchResponse(productDTOS, missingIds);
+    }
+
+    @Override
+    public ProductResponse searchProductIndex(String query, String operator, String category, Integer pageNumber, Integer pageSize) {
+        if (pageNumber < 0 || pageSize < 1) {
+            throw new APIException("Page number must not be negative and page size must be at least 1");
+        }
+
+        ProductSearchIndex.Operator searchOperator;
+        try {
+            searchOperator = ProductSearchIndex.Operator.valueOf(operator.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new APIException("Unsupported search operator: " + operator + " (expected AND or OR)");
+        }
+
+        Long categoryId = null;
+        if (category != null && !category.isEmpty()) {
+            Category categoryFromDb = categoryRepository.findByCategoryName(category);
+            if (categoryFromDb == null) {
+                throw new ResourceNotFoundException("Category", "categoryName", category);
+            }
+            categoryId = categoryFromDb.getCategoryId();
+        }
+
+        ProductSearchIndex.SearchHits hits = productSearchIndex.search(query, searchOperator, categoryId, pageNumber, pageSize);
+
+        // Only the final page touches the database; restore the ranked order after the IN query
+        Map<Long, ProductDTO> productsById = productRepository.findDTOsByProductIdIn(hits.productIds()).stream()
+                .collect(Collectors.toMap(ProductDTO::getProductId, Function.identity()));
+
+        List<ProductDTO> productDTOS = hits.productIds().stream()
+                .map(productsById::get)
+                .filter(Objects::nonNull)
+                .toList();
+        productDTOS.forEach(productDTO -> productDTO.setImage(constructImageUrl(productDTO.getImage())));
+
+        int totalPages = (int) Math.ceil((double) hits.totalHits() / pageSize);
+
+        ProductResponse productResponse = new ProductResponse();
+        productResponse.setContent(productDTOS);
+        productResponse.setPageNumber(pageNumber);
+        productResponse.setPageSize(pageSize);
+        productResponse.setTotalElements(hits.totalHits());
+        productResponse.setTotalPages(totalPages);
+        productResponse.setLastPage(pageNumber >= totalPages - 1);
+        return productResponse;
+    }
+
     // ProductServiceImpl.java
     @Override
     @Transactional
     public ProductDTO updateProduct(Long productId, ProductDTO dto) {
 
-        Product entity = productRepository.findById(productId)
+        Product entity = productRepository.findByIdForUpdate(productId)
                 .orElseThrow(() ->
                         new ResourceNotFoundException("Product","id",productId));
 
@@ -356,15 +598,27 @@ public class ProductServiceImpl implements ProductService {
         // Validate access - users can only update their own products, admins can update any product
         validateProductAccess(entity, "update");
 
+        double previousSpecialPrice = entity.getSpecialPrice();
+        double previousDiscount = entity.getDiscount();
+
         /* ✨ copy only mutable fields; productId is skipped automatically */
-        modelMapper.map(dto, entity);
+        dtoMapper.copyProduct(dto, entity);
 
         /* recompute specialPrice if price/discount changed */
         double special = dto.getPrice() -
            dto.getPrice() * dto.getDiscount() / 100.0;
        entity.setSpecialPrice(special);
 
-        return modelMapper.map(productRepository.save(entity), ProductDTO.class);
+        Product savedProduct = productRepository.save(entity);
+        productSearchIndex.indexProduct(savedProduct);
+        productCache.invalidate(productId);
+        hotInventory.reseed(productId);
+        catalogPageCache.bump();
+        if (special != previousSpecialPrice || savedProduct.getDiscount() != previousDiscount) {
+            cartRepricer.reprice(productId);
+        }
+
+        return dtoMapper.toProductDTO(savedProduct);
     }
 
 
@@ -390,11 +644,14 @@ public class ProductServiceImpl implements ProductService {
         /* ─────────────────────────────────────────────────────── */
 
         // Remove from every cart that still references the product
-        cartRepository.findCartsByProductId(productId)
-                .forEach(c -> cartService.deleteProductFromCart(c.getCartId(), productId));
+        cartService.removeProductFromAllCarts(productId);
 
         productRepository.delete(entity);                // hard-delete
-        return modelMapper.map(entity, ProductDTO.class);
+        productSearchIndex.removeProduct(productId);
+        productCache.invalidate(productId);
+        listingTotals.evict("products|");
+        catalogPageCache.bump();
+        return dtoMapper.toProductDTO(entity);
     }
 
 
@@ -418,42 +675,43 @@ public class ProductServiceImpl implements ProductService {
             String fileName = fileService.uploadImage(image);
             p.setImage(fileName);
             Product savedProduct = productRepository.save(p);
-            return modelMapper.map(savedProduct, ProductDTO.class);
+            productCache.invalidate(id);
+            catalogPageCache.bump();
+            return dtoMapper.toProductDTO(savedProduct);
         } catch (IOException e) {
             throw new RuntimeException("Failed to upload image: " + e.getMessage(), e);
         }
     }
 
     @Override
-    public ProductResponse getUserProducts(String email, Integer pageNumber, Integer pageSize, String sortBy, String sortOrder) {
+    public ProductResponse getUserProducts(String email, Integer pageNumber, Integer pageSize, String sortBy, String sortOrder, boolean includeTotal) {
         Sort sortByAndOrder = sortOrder.equalsIgnoreCase("asc")
                 ? Sort.by(sortBy).ascending()
                 : Sort.by(sortBy).descending();
 
         Pageable pageDetails = PageRequest.of(pageNumber, pageSize, sortByAndOrder);
-        Page<Product> pageProducts = productRepository.findByUserEmailOrderByProductIdDesc(email, pageDetails);
+        Slice<ProductDTO> pageProducts = productRepository.findSliceByUserEmail(email, pageDetails);
 
-        List<Product> products = pageProducts.getContent();
-        if (products.isEmpty()) {
+        List<ProductDTO> productDTOs = pageProducts.getContent();
+        if (productDTOs.isEmpty()) {
             throw new APIException("No products found for user: " + email);
         }
-
-        List<ProductDTO> productDTOs = products.stream()
-                .map(product -> {
-                    ProductDTO productDTO = modelMapper.map(product, ProductDTO.class);
-                    productDTO.setImage(constructImageUrl(product.getImage()));
-                    return productDTO;
-                })
-                .toList();
+        productDTOs.forEach(productDTO -> productDTO.setImage(constructImageUrl(productDTO.getImage())));
 
         ProductResponse productResponse = new ProductResponse();
         productResponse.setContent(productDTOs);
         productResponse.setPageNumber(pageProducts.getNumber());
         productResponse.setPageSize(pageProducts.getSize());
-        productResponse.setTotalElements(pageProducts.getTotalElements());
-        productResponse.setTotalPages(pageProducts.getTotalPages());
         productResponse.setLastPage(pageProducts.isLast());
 
+        if (includeTotal) {
+            ListingTotals.Total total = listingTotals.cached("products|user|" + email,
+                    () -> productRepository.countByUserEmail(email));
+            productResponse.setTotalElements(total.count());
+            productResponse.setTotalPages(total.totalPages(pageSize));
+            productResponse.setTotalExact(total.exact());
+        }
+
         return productResponse;
     }
 
@@ -463,19 +721,25 @@ public class ProductServiceImpl implements ProductService {
         User user = userRepository.findByUserName(email)
                 .orElseThrow(() -> new ResourceNotFoundException("User", "email", email));
 
-        List<Product> products = productRepository.findByUserOrderByProductIdDesc(user);
+        List<ProductDTO> productDTOs = productRepository.findByUserOrderByProductIdDesc(user);
 
-        if (products.isEmpty()) {
+        if (productDTOs.isEmpty()) {
             throw new APIException("No products found for user: " + email);
         }
 
-        return products.stream()
-                .map(product -> {
-                    ProductDTO productDTO = modelMapper.map(product, ProductDTO.class);
-                    productDTO.setImage(constructImageUrl(product.getImage()));
-                    return productDTO;
-                })
-                .toList();
+        productDTOs.forEach(productDTO -> productDTO.setImage(constructImageUrl(productDTO.getImage())));
+        return productDTOs;
+    }
+
+    @Override
+    @Transactional
+    public void exportUserProducts(String email, ExportFormat format, OutputStream out) throws IOException {
+        try (Stream<ProductDTO> rows = productRepository.streamByUserEmail(email)
+                .peek(productDTO -> productDTO.setImage(constructImageUrl(productDTO.getImage())))) {
+            exportWriter.write(rows, format, PRODUCT_EXPORT_COLUMNS, product -> Arrays.asList(product.getProductId(),
+                    product.getProductName(), product.getDescription(), product.getQuantity(), product.getPrice(),
+                    product.getDiscount(), product.getSpecialPrice(), product.getImage()), out);
+        }
     }
 
     @Override
@@ -490,20 +754,13 @@ public class ProductServiceImpl implements ProductService {
                 : Sort.by(sortBy).descending();
 
         Pageable pageDetails = PageRequest.of(pageNumber, pageSize, sortByAndOrder);
-        Page<Product> pageProducts = productRepository.findByUserIdOrderByProductIdDesc(userId, pageDetails);
+        Page<ProductDTO> pageProducts = productRepository.findByUserIdOrderByProductIdDesc(userId, pageDetails);
 
-        List<Product> products = pageProducts.getContent();
-        if (products.isEmpty()) {
+        List<ProductDTO> productDTOs = pageProducts.getContent();
+        if (productDTOs.isEmpty()) {
             throw new APIException("No products found for user ID: " + userId);
         }
-
-        List<ProductDTO> productDTOs = products.stream()
-                .map(product -> {
-                    ProductDTO productDTO = modelMapper.map(product, ProductDTO.class);
-                    productDTO.setImage(constructImageUrl(product.getImage()));
-                    return productDTO;
-                })
-                .toList();
+        productDTOs.forEach(productDTO -> productDTO.setImage(constructImageUrl(productDTO.getImage())));
 
         ProductResponse productResponse = new ProductResponse();
         productResponse.setContent(productDTOs);
@@ -518,19 +775,36 @@ public class ProductServiceImpl implements ProductService {
 
     @Override
     public List<ProductDTO> getProductsListByUserId(Long userId) {
-        List<Product> products = productRepository.findByUserIdOrderByProductIdDesc(userId);
+        List<ProductDTO> productDTOs = productRepository.findByUserIdOrderByProductIdDesc(userId);
 
-        if (products.isEmpty()) {
+        if (productDTOs.isEmpty()) {
             throw new APIException("No products found for user ID: " + userId);
         }
 
-        return products.stream()
-                .map(product -> {
-                    ProductDTO productDTO = modelMapper.map(product, ProductDTO.class);
-                    productDTO.setImage(constructImageUrl(product.getImage()));
-                    return productDTO;
-                })
-                .toList();
+        productDTOs.forEach(productDTO -> productDTO.setImage(constructImageUrl(productDTO.getImage())));
+        return productDTOs;
+    }
+
+    @Override
+    public HotInventory.Status setHotInventory(Long productId, boolean enabled) {
+        HotInventory.Status status = enabled ? hotInventory.enable(productId) : hotInventory.disable(productId);
+        catalogPageCache.bump();
+        return status;
+    }
+
+    @Override
+    public HotInventory.Status getHotInventory(Long productId) {
+        return hotInventory.status(productId);
+    }
+
+    @Override
+    public ProductCache.Stats getProductCacheStats() {
+        return productCache.stats();
+    }
+
+    @Override
+    public CartRepricer.Stats getCartRepricingStats() {
+        return cartRepricer.stats();
     }
 
     @Override
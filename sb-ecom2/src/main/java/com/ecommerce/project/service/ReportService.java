@@ -0,0 +1,22 @@
+package com.ecommerce.project.service;
+
+import com.ecommerce.project.payload.APIResponse;
+import com.ecommerce.project.payload.SalesReportDTO;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface ReportService {
+
+    // One row per day in [from, to]; sellerId and categoryId optionally narrow it down
+    List<SalesReportDTO> getDailySales(LocalDate from, LocalDate to, Long sellerId, Long categoryId);
+
+    // Totals per seller over [from, to]
+    List<SalesReportDTO> getSalesBySeller(LocalDate from, LocalDate to);
+
+    // Totals per category over [from, to]
+    List<SalesReportDTO> getSalesByCategory(LocalDate from, LocalDate to);
+
+    // Rebuilds the rollups of [from, to] from the orders
+    APIResponse reconcileSales(LocalDate from, LocalDate to);
+}
@@ -0,0 +1,104 @@
+package com.ecommerce.project.service;
+
+import com.ecommerce.project.exceptions.APIException;
+import com.ecommerce.project.payload.APIResponse;
+import com.ecommerce.project.payload.SalesReportDTO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sales reports. Reads sales_daily_rollups only, never orders or order_items, so a report
+ * costs O(days in range) however many orders were placed.
+ */
+@Service
+public class ReportServiceImpl implements ReportService {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private SalesRollups salesRollups;
+
+    @Autowired
+    private OrderPartitions orderPartitions;
+
+    @Value("${reports.max-days:366}")
+    private long maxDays;
+
+    @Override
+    public List<SalesReportDTO> getDailySales(LocalDate from, LocalDate to, Long sellerId, Long categoryId) {
+        checkRange(from, to);
+        StringBuilder sql = new StringBuilder("SELECT sales_date, SUM(units) AS units, SUM(revenue) AS revenue, "
+                + "SUM(order_count) AS order_count FROM sales_daily_rollups WHERE sales_date BETWEEN ? AND ?");
+        List<Object> args = new ArrayList<>(List.of(Date.valueOf(from), Date.valueOf(to)));
+        if (sellerId != null) {
+            sql.append(" AND seller_id = ?");
+            args.add(sellerId);
+        }
+        if (categoryId != null) {
+            sql.append(" AND category_id = ?");
+            args.add(categoryId);
+        }
+        sql.append(" GROUP BY sales_date ORDER BY sales_date");
+
+        return jdbcTemplate.query(sql.toString(), (rs, rowNum) -> new SalesReportDTO(
+                rs.getDate("sales_date").toLocalDate(), sellerId, categoryId,
+                rs.getLong("units"), rs.getDouble("revenue"), rs.getLong("order_count")), args.toArray());
+    }
+
+    @Override
+    public List<SalesReportDTO> getSalesBySeller(LocalDate from, LocalDate to) {
+        checkRange(from, to);
+        return jdbcTemplate.query("SELECT seller_id, SUM(units) AS units, SUM(revenue) AS revenue, "
+                        + "SUM(order_count) AS order_count FROM sales_daily_rollups WHERE sales_date BETWEEN ? AND ? "
+                        + "GROUP BY seller_id ORDER BY revenue DESC",
+                (rs, rowNum) -> new SalesReportDTO(null, toId(rs.getLong("seller_id")), null,
+                        rs.getLong("units"), rs.getDouble("revenue"), rs.getLong("order_count")),
+                Date.valueOf(from), Date.valueOf(to));
+    }
+
+    @Override
+    public List<SalesReportDTO> getSalesByCategory(LocalDate from, LocalDate to) {
+        checkRange(from, to);
+        return jdbcTemplate.query("SELECT category_id, SUM(units) AS units, SUM(revenue) AS revenue, "
+                        + "SUM(order_count) AS order_count FROM sales_daily_rollups WHERE sales_date BETWEEN ? AND ? "
+                        + "GROUP BY category_id ORDER BY revenue DESC",
+                (rs, rowNum) -> new SalesReportDTO(null, null, toId(rs.getLong("category_id")),
+                        rs.getLong("units"), rs.getDouble("revenue"), rs.getLong("order_count")),
+                Date.valueOf(from), Date.valueOf(to));
+    }
+
+    @Override
+    public APIResponse reconcileSales(LocalDate from, LocalDate to) {
+        checkRange(from, to);
+        // Rebuilding would wipe days whose orders are no longer online
+        LocalDate onlineSince = orderPartitions.onlineSince();
+        if (from.isBefore(onlineSince)) {
+            throw new APIException("Orders before " + onlineSince + " are archived; their rollups cannot be rebuilt");
+        }
+        salesRollups.reconcile(from, to);
+        return new APIResponse("Sales rollups rebuilt from " + from + " to " + to, true);
+    }
+
+    private void checkRange(LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) {
+            throw new APIException("Report start date must not be after its end date");
+        }
+        if (ChronoUnit.DAYS.between(from, to) >= maxDays) {
+            throw new APIException("Reports can cover at most " + maxDays + " days");
+        }
+    }
+
+    // Rollups store 0 for "no seller" / "no category"
+    private static Long toId(long id) {
+        return id != 0 ? id : null;
+    }
+}
@@ -0,0 +1,103 @@
+package com.ecommerce.project.service;
+
+import jakarta.transaction.Transactional;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+
+/**
+ * Maintains sales_daily_rollups (units, revenue and order count per day, seller and category).
+ * placeOrder appends the order's contribution to sales_rollup_deltas in its own transaction;
+ * plain inserts, so concurrent checkouts never wait on a shared rollup row. A scheduled fold
+ * moves the deltas into the rollups and a nightly job recomputes recent days from the orders.
+ *
+ * Fold and reconciliation serialize on an advisory lock, and reconciliation skips orders whose
+ * deltas are still pending, so no order is counted twice.
+ */
+@Component
+public class SalesRollups {
+
+    private static final String LOCK_SQL = "SELECT pg_advisory_xact_lock(hashtext('sales_daily_rollups'))";
+
+    private static final String RECORD_SQL = """
+            INSERT INTO sales_rollup_deltas (order_id, sales_date, seller_id, category_id, units, revenue)
+            SELECT o.order_id, o.order_date, COALESCE(p.seller_id, 0), COALESCE(p.category_id, 0),
+                   SUM(oi.quantity), SUM(oi.ordered_product_price * oi.quantity)
+            FROM orders o
+            JOIN order_items oi ON oi.order_id = o.order_id AND oi.order_date = o.order_date
+            JOIN products p ON p.product_id = oi.product_id
+            WHERE o.order_id = ? AND o.order_date = ?
+            GROUP BY o.order_id, o.order_date, COALESCE(p.seller_id, 0), COALESCE(p.category_id, 0)""";
+
+    // One delta row per (order, seller, category), so COUNT(*) is the order count of the group
+    private static final String FOLD_SQL = """
+            WITH flushed AS (DELETE FROM sales_rollup_deltas RETURNING sales_date, seller_id, category_id, units, revenue)
+            INSERT INTO sales_daily_rollups (sales_date, seller_id, category_id, units, revenue, order_count)
+            SELECT sales_date, seller_id, category_id, SUM(units), SUM(revenue), COUNT(*)
+            FROM flushed GROUP BY sales_date, seller_id, category_id
+            ON CONFLICT (sales_date, seller_id, category_id) DO UPDATE SET
+                units = sales_daily_rollups.units + EXCLUDED.units,
+                revenue = sales_daily_rollups.revenue + EXCLUDED.revenue,
+                order_count = sales_daily_rollups.order_count + EXCLUDED.order_count""";
+
+    private static final String RECOMPUTE_SQL = """
+            INSERT INTO sales_daily_rollups (sales_date, seller_id, category_id, units, revenue, order_count)
+            SELECT o.order_date, COALESCE(p.seller_id, 0), COALESCE(p.category_id, 0),
+                   SUM(oi.quantity), SUM(oi.ordered_product_price * oi.quantity), COUNT(DISTINCT o.order_id)
+            FROM orders o
+            JOIN order_items oi ON oi.order_id = o.order_id AND oi.order_date = o.order_date
+            JOIN products p ON p.product_id = oi.product_id
+            WHERE o.order_date BETWEEN ? AND ? AND oi.order_date BETWEEN ? AND ?
+              AND NOT EXISTS (SELECT 1 FROM sales_rollup_deltas d WHERE d.order_id = o.order_id)
+            GROUP BY o.order_date, COALESCE(p.seller_id, 0), COALESCE(p.category_id, 0)""";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${reports.sales.reconcile-days:2}")
+    private int reconcileDays;
+
+    /**
+     * Journals a placed order; must run in the order's transaction after its items are flushed.
+     */
+    public void record(Long orderId, LocalDate orderDate) {
+        jdbcTemplate.update(RECORD_SQL, orderId, Date.valueOf(orderDate));
+    }
+
+    @Scheduled(fixedDelayString = "${reports.sales.fold-interval-ms:60000}")
+    @Transactional
+    public void fold() {
+        jdbcTemplate.execute(LOCK_SQL);
+        jdbcTemplate.update(FOLD_SQL);
+    }
+
+    /**
+     * Rebuilds the rollups of [from, to] from orders and order_items. Reads only the orders of
+     * those days, so the cost is independent of the total order history.
+     */
+    public void reconcile(LocalDate from, LocalDate to) {
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.execute(LOCK_SQL);
+            jdbcTemplate.update("DELETE FROM sales_daily_rollups WHERE sales_date BETWEEN ? AND ?",
+                    Date.valueOf(from), Date.valueOf(to));
+            jdbcTemplate.update(RECOMPUTE_SQL, Date.valueOf(from), Date.valueOf(to), Date.valueOf(from), Date.valueOf(to));
+        });
+    }
+
+    // Nightly pass over the last few completed days, catching anything the incremental path missed
+    @Scheduled(cron = "${reports.sales.reconcile-cron:0 30 2 * * *}")
+    public void reconcileRecentDays() {
+        LocalDate yesterday = LocalDate.now().minusDays(1);
+        reconcile(yesterday.minusDays(reconcileDays - 1), yesterday);
+        System.out.println("Sales rollups reconciled for the " + reconcileDays + " days up to " + yesterday);
+    }
+}
@@ -0,0 +1,83 @@
+package com.ecommerce.project.service;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Non-negative stock counter split across padded stripes, so concurrent takers mostly CAS
+ * different cache lines instead of all spinning on one value. A take that no single stripe
+ * can satisfy falls back to gathering every stripe under a lock.
+ */
+class StripedCounter {
+
+    // One counter per 64-byte cache line
+    private static final int PADDING = 8;
+
+    private final int stripes;
+    private final AtomicLongArray cells;
+    private final LongAdder inFlight = new LongAdder();
+
+    StripedCounter(long initial) {
+        int processors = Runtime.getRuntime().availableProcessors();
+        this.stripes = Integer.highestOneBit(Math.max(1, processors - 1) << 1);
+        this.cells = new AtomicLongArray(stripes * PADDING);
+        spread(initial);
+    }
+
+    boolean tryTake(long amount) {
+        int start = ThreadLocalRandom.current().nextInt(stripes);
+        for (int i = 0; i < stripes; i++) {
+            int index = ((start + i) & (stripes - 1)) * PADDING;
+            long current;
+            while ((current = cells.get(index)) >= amount) {
+                if (cells.compareAndSet(index, current, current - amount)) {
+                    return true;
+                }
+            }
+        }
+        return takeGathered(amount);
+    }
+
+    void give(long amount) {
+        int index = ThreadLocalRandom.current().nextInt(stripes) * PADDING;
+        cells.addAndGet(index, amount);
+    }
+
+    long available() {
+        long sum = 0;
+        for (int i = 0; i < stripes; i++) {
+            sum += cells.get(i * PADDING);
+        }
+        return sum;
+    }
+
+    // Replaces the stock outright; callers must keep takers out while it runs
+    synchronized void reset(long value) {
+        spread(value);
+    }
+
+    // Reservations taken but whose transaction has not completed yet
+    LongAdder inFlight() {
+        return inFlight;
+    }
+
+    // Stock may be fragmented with no stripe holding enough on its own; pool it into stripe 0
+    private synchronized boolean takeGathered(long amount) {
+        long pooled = 0;
+        for (int i = 0; i < stripes; i++) {
+            pooled += cells.getAndSet(i * PADDING, 0);
+        }
+        boolean taken = pooled >= amount;
+        cells.addAndGet(0, taken ? pooled - amount : pooled);
+        return taken;
+    }
+
+    private void spread(long value) {
+        long share = Math.max(0, value) / stripes;
+        for (int i = 0; i < stripes; i++) {
+            cells.set(i * PADDING, share);
+        }
+        cells.addAndGet(0, Math.max(0, value) - share * stripes);
+    }
+}
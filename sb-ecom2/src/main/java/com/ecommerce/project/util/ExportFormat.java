@@ -0,0 +1,36 @@
+package com.ecommerce.project.util;
+
+import com.ecommerce.project.exceptions.APIException;
+
+/**
+ * Formats offered by the streaming export endpoints.
+ */
+public enum ExportFormat {
+    NDJSON("application/x-ndjson", "ndjson"),
+    CSV("text/csv", "csv");
+
+    private final String contentType;
+    private final String extension;
+
+    ExportFormat(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    public String contentType() {
+        return contentType;
+    }
+
+    public String extension() {
+        return extension;
+    }
+
+    public static ExportFormat of(String format) {
+        for (ExportFormat value : values()) {
+            if (value.extension.equalsIgnoreCase(format)) {
+                return value;
+            }
+        }
+        throw new APIException("Unsupported export format: " + format + " (use ndjson or csv)");
+    }
+}
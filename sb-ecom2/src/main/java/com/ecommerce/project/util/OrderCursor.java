@@ -0,0 +1,30 @@
+package com.ecommerce.project.util;
+
+import com.ecommerce.project.exceptions.APIException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position of the last order on a keyset page of order history, which is always newest first:
+ * orderDate descending with orderId as tie-breaker. Clients only see the opaque form from {@link #encode()}.
+ */
+public record OrderCursor(LocalDate orderDate, Long orderId) {
+
+    public String encode() {
+        String raw = orderDate + "\n" + orderId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static OrderCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\n", 2);
+            return new OrderCursor(LocalDate.parse(parts[0]), Long.valueOf(parts[1]));
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException | DateTimeParseException e) {
+            throw new APIException("Invalid pagination cursor: " + token);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.ecommerce.project.util;
+
+import com.ecommerce.project.exceptions.APIException;
+import com.ecommerce.project.payload.ProductDTO;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Set;
+
+/**
+ * Position of the last product on a keyset page: the sort key value plus productId as tie-breaker.
+ * Clients only ever see the opaque Base64 form produced by {@link #encode()}.
+ */
+public record ProductCursor(String sortBy, boolean ascending, Comparable<?> value, Long productId) {
+
+    // Only non-null columns can be used as keyset sort keys
+    public static final Set<String> SORTABLE_FIELDS = Set.of("productId", "price", "discount", "specialPrice");
+
+    public static ProductCursor of(String sortBy, boolean ascending, ProductDTO product) {
+        Comparable<?> value = switch (sortBy) {
+            case "productId" -> product.getProductId();
+            case "price" -> product.getPrice();
+            case "discount" -> product.getDiscount();
+            case "specialPrice" -> product.getSpecialPrice();
+            default -> throw new APIException("Cursor pagination does not support sorting by " + sortBy);
+        };
+        return new ProductCursor(sortBy, ascending, value, product.getProductId());
+    }
+
+    public String encode() {
+        String raw = sortBy + "\n" + (ascending ? "asc" : "desc") + "\n" + productId + "\n" + value;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static ProductCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\n", 4);
+            String sortBy = parts[0];
+            boolean ascending = parts[1].equals("asc");
+            Long productId = Long.valueOf(parts[2]);
+            Comparable<?> value = sortBy.equals("productId") ? Long.valueOf(parts[3]) : Double.valueOf(parts[3]);
+            if (!SORTABLE_FIELDS.contains(sortBy)) {
+                throw new IllegalArgumentException(sortBy);
+            }
+            return new ProductCursor(sortBy, ascending, value, productId);
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            throw new APIException("Invalid pagination cursor: " + token);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+-- Runs after Hibernate's ddl-auto=update (spring.jpa.defer-datasource-initialization=true),
+-- so every statement here must be idempotent.
+
+-- Full-text search over product name + description.
+-- Keep the expression in sync with SearchFunctionContributor.
+CREATE INDEX IF NOT EXISTS idx_products_search
+    ON products USING GIN (to_tsvector('english', coalesce(product_name, '') || ' ' || coalesce(description, '')));
+
+-- Keyset pagination seeks on (sort key, product_id)
+CREATE INDEX IF NOT EXISTS idx_products_price_id ON products (price, product_id);
+CREATE INDEX IF NOT EXISTS idx_products_special_price_id ON products (special_price, product_id);
+CREATE INDEX IF NOT EXISTS idx_products_discount_id ON products (discount, product_id);
+
+-- Flash-sale ("hot") inventory: flagged rows are reserved in memory and journaled here
+-- until HotInventory folds the reservations into products.quantity
+ALTER TABLE products ADD COLUMN IF NOT EXISTS hot_inventory boolean NOT NULL DEFAULT false;
+
+CREATE TABLE IF NOT EXISTS inventory_reservations (
+    reservation_id bigserial PRIMARY KEY,
+    product_id bigint NOT NULL,
+    quantity integer NOT NULL
+);
+
+-- Order history is read newest first, by email or by user; both seek on these.
+-- orders/order_items are partitioned by OrderPartitions, which keeps its own copy of these definitions.
+CREATE INDEX IF NOT EXISTS idx_order_items_order ON order_items (order_id);
+CREATE INDEX IF NOT EXISTS idx_orders_email_date ON orders (email, order_date DESC, order_id DESC);
+CREATE INDEX IF NOT EXISTS idx_orders_user_date ON orders (user_id, order_date DESC, order_id DESC);
+
+-- orders.user_id is denormalized from the delivery address; backfill orders placed before it existed
+UPDATE orders o SET user_id = a.user_id
+FROM addresses a
+WHERE o.user_id IS NULL AND o.address_id = a.address_id AND a.user_id IS NOT NULL;
+
+-- Daily sales per (day, seller, category); seller_id/category_id 0 stand for "none".
+-- Checkouts only append to sales_rollup_deltas; SalesRollups folds them in and reconciles nightly.
+CREATE TABLE IF NOT EXISTS sales_daily_rollups (
+    sales_date date NOT NULL,
+    seller_id bigint NOT NULL,
+    category_id bigint NOT NULL,
+    units bigint NOT NULL,
+    revenue double precision NOT NULL,
+    order_count bigint NOT NULL,
+    PRIMARY KEY (sales_date, seller_id, category_id)
+);
+CREATE INDEX IF NOT EXISTS idx_sales_rollups_seller ON sales_daily_rollups (seller_id, sales_date);
+CREATE INDEX IF NOT EXISTS idx_sales_rollups_category ON sales_daily_rollups (category_id, sales_date);
+
+CREATE TABLE IF NOT EXISTS sales_rollup_deltas (
+    delta_id bigserial PRIMARY KEY,
+    order_id bigint NOT NULL,
+    sales_date date NOT NULL,
+    seller_id bigint NOT NULL,
+    category_id bigint NOT NULL,
+    units bigint NOT NULL,
+    revenue double precision NOT NULL
+);
+CREATE INDEX IF NOT EXISTS idx_sales_rollup_deltas_order ON sales_rollup_deltas (order_id);
+
+-- Pooled id sequences (allocationSize 50, pooled-lo): start them past the ids handed out by the old
+-- IDENTITY columns. Compared with the start of the next block, not last_value: a running instance may
+-- still be using the block that starts at last_value, and moving the sequence back into it would hand
+-- the same ids out twice. A no-op once a sequence is ahead of its table.
+SELECT setval('orders_seq', m, false) FROM (SELECT MAX(order_id) + 1 AS m FROM orders) t
+WHERE m > (SELECT CASE WHEN is_called THEN last_value + 50 ELSE last_value END FROM orders_seq);
+SELECT setval('order_items_seq', m, false) FROM (SELECT MAX(order_item_id) + 1 AS m FROM order_items) t
+WHERE m > (SELECT CASE WHEN is_called THEN last_value + 50 ELSE last_value END FROM order_items_seq);
+SELECT setval('cart_items_seq', m, false) FROM (SELECT MAX(cart_item_id) + 1 AS m FROM cart_items) t
+WHERE m > (SELECT CASE WHEN is_called THEN last_value + 50 ELSE last_value END FROM cart_items_seq);
+SELECT setval('payments_seq', m, false) FROM (SELECT MAX(payment_id) + 1 AS m FROM payments) t
+WHERE m > (SELECT CASE WHEN is_called THEN last_value + 50 ELSE last_value END FROM payments_seq);
+
+-- One line per product per cart; cart writes upsert against this key (CartItemRepository).
+-- Lines duplicated before it existed are merged into the oldest one first.
+UPDATE cart_items ci SET quantity = d.quantity
+FROM (SELECT MIN(cart_item_id) AS cart_item_id, SUM(quantity) AS quantity
+      FROM cart_items GROUP BY cart_id, product_id HAVING COUNT(*) > 1) d
+WHERE ci.cart_item_id = d.cart_item_id;
+DELETE FROM cart_items ci USING cart_items keep
+WHERE ci.cart_id = keep.cart_id AND ci.product_id = keep.product_id AND ci.cart_item_id > keep.cart_item_id;
+CREATE UNIQUE INDEX IF NOT EXISTS uq_cart_items_cart_product ON cart_items (cart_id, product_id);
+-- Product-wide cart maintenance (delete, repricing) finds a product's lines through this
+CREATE INDEX IF NOT EXISTS idx_cart_items_product ON cart_items (product_id);
+
+-- One async checkout per Idempotency-Key and user; intents without a key (NULL) never collide
+CREATE UNIQUE INDEX IF NOT EXISTS uq_order_intents_email_key ON order_intents (email, idempotency_key);
+
+-- Catalog version shared by all instances (CatalogPageCache); every product or category write advances it
+CREATE SEQUENCE IF NOT EXISTS catalog_version_seq;
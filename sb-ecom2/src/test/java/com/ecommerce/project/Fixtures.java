@@ -0,0 +1,96 @@
+package com.ecommerce.project;
+
+import com.ecommerce.project.model.Address;
+import com.ecommerce.project.model.Cart;
+import com.ecommerce.project.model.CartItem;
+import com.ecommerce.project.model.Category;
+import com.ecommerce.project.model.Product;
+import com.ecommerce.project.model.User;
+import com.ecommerce.project.repositories.AddressRepository;
+import com.ecommerce.project.repositories.CartRepository;
+import com.ecommerce.project.repositories.CategoryRepository;
+import com.ecommerce.project.repositories.ProductRepository;
+import com.ecommerce.project.repositories.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.TestComponent;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates the rows tests work on. Names are unique per call, so tests never depend on (or
+ * collide with) data left behind by other tests or earlier runs against the same database.
+ */
+@TestComponent
+public class Fixtures {
+
+    private static final String RUN = Long.toString(System.currentTimeMillis() % 1_000_000_000L, 36);
+    private static final AtomicInteger SEQUENCE = new AtomicInteger();
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private AddressRepository addressRepository;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    public static String unique(String prefix) {
+        return prefix + RUN + "x" + SEQUENCE.incrementAndGet();
+    }
+
+    public Category category() {
+        Category category = new Category();
+        category.setCategoryName(unique("Category"));
+        return categoryRepository.save(category);
+    }
+
+    public Product product(Category category, int quantity, double price) {
+        Product product = new Product();
+        product.setProductName(unique("Product"));
+        product.setDescription("Test product description");
+        product.setImage("default.png");
+        product.setQuantity(quantity);
+        product.setPrice(price);
+        product.setDiscount(0);
+        product.setSpecialPrice(price);
+        product.setCategory(category);
+        return productRepository.save(product);
+    }
+
+    public User user() {
+        String name = unique("u");
+        return userRepository.save(new User(name, name + "@example.com", "password"));
+    }
+
+    public Address address(User user) {
+        Address address = new Address("Test street", "Test building", "Test city", "Test state", "Test country", "12345");
+        address.setUser(user);
+        return addressRepository.save(address);
+    }
+
+    // Fills the user's cart with the lines, creating the cart on first use (checkout empties it)
+    public Cart cart(User user, Map<Product, Integer> lines) {
+        Cart cart = cartRepository.findCartWithItemsByEmail(user.getEmail());
+        if (cart == null) {
+            cart = new Cart();
+            cart.setUser(user);
+        }
+        double total = cart.getTotalPrice() != null ? cart.getTotalPrice() : 0;
+        for (Map.Entry<Product, Integer> line : lines.entrySet()) {
+            Product product = line.getKey();
+            cart.getCartItems().add(new CartItem(null, cart, product, line.getValue(),
+                    product.getDiscount(), product.getSpecialPrice()));
+            total += product.getSpecialPrice() * line.getValue();
+        }
+        cart.setTotalPrice(total);
+        return cartRepository.save(cart);
+    }
+}
@@ -0,0 +1,53 @@
+package com.ecommerce.project;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.DockerClientFactory;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Base for tests that need the real schema (partitioning, native upserts, advisory locks), so
+ * they run against PostgreSQL rather than an embedded database. A single container is shared by
+ * every test class and skipped when Docker is not available. Pass -Dtest.postgres.url (plus
+ * test.postgres.username / test.postgres.password) to use an existing server instead.
+ */
+@SpringBootTest
+@Import({Fixtures.class, QueryCounter.class})
+public abstract class PostgresIntegrationTest {
+
+    private static final String EXTERNAL_URL = System.getProperty("test.postgres.url");
+
+    private static PostgreSQLContainer<?> postgres;
+
+    @BeforeAll
+    static void requireDatabase() {
+        assumeTrue(EXTERNAL_URL != null || DockerClientFactory.instance().isDockerAvailable(),
+                "Docker is not available and no -Dtest.postgres.url was given");
+    }
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        if (EXTERNAL_URL != null) {
+            registry.add("spring.datasource.url", () -> EXTERNAL_URL);
+            registry.add("spring.datasource.username", () -> System.getProperty("test.postgres.username", "postgres"));
+            registry.add("spring.datasource.password", () -> System.getProperty("test.postgres.password", "postgres"));
+            return;
+        }
+        registry.add("spring.datasource.url", () -> container().getJdbcUrl());
+        registry.add("spring.datasource.username", () -> container().getUsername());
+        registry.add("spring.datasource.password", () -> container().getPassword());
+    }
+
+    private static synchronized PostgreSQLContainer<?> container() {
+        if (postgres == null) {
+            postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+            postgres.start();
+        }
+        return postgres;
+    }
+}
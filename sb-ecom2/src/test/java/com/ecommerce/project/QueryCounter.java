@@ -0,0 +1,111 @@
+package com.ecommerce.project;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.TestComponent;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Wraps the application DataSource and records the JDBC statements one test thread executes
+ * while an action runs. Statements from other threads (scheduled jobs, the checkout dispatcher)
+ * are ignored, so counts only reflect the code under test.
+ */
+@TestComponent
+public class QueryCounter implements BeanPostProcessor, QueryExecutionListener {
+
+    // One execution is one round trip: a plain statement, or a whole JDBC batch of rows
+    public record Execution(String sql, boolean batch, int rows) {
+
+        public boolean isSelect() {
+            return sql.startsWith("select") || sql.startsWith("with");
+        }
+
+        public boolean touches(String table) {
+            return sql.matches("(?s).*\\b" + table + "\\b.*");
+        }
+    }
+
+    public record Recording(List<Execution> executions) {
+
+        public int statements() {
+            return executions.size();
+        }
+
+        public long selects() {
+            return executions.stream().filter(Execution::isSelect).count();
+        }
+
+        public long batches() {
+            return executions.stream().filter(Execution::batch).count();
+        }
+
+        // Rows sent by INSERT/UPDATE/DELETE statements, counting every row of a batch
+        public int rowsWritten() {
+            return executions.stream().filter(execution -> !execution.isSelect()).mapToInt(Execution::rows).sum();
+        }
+
+        public long touching(String table) {
+            return executions.stream().filter(execution -> execution.touches(table)).count();
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder text = new StringBuilder(statements() + " statements");
+            executions.forEach(execution -> text.append(System.lineSeparator()).append("  ")
+                    .append(execution.batch() ? "[batch of " + execution.rows() + "] " : "").append(execution.sql()));
+            return text.toString();
+        }
+    }
+
+    private volatile Thread recordingThread;
+    private final List<Execution> executions = new ArrayList<>();
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource dataSource) {
+            return ProxyDataSourceBuilder.create(dataSource).name(beanName).listener(this).build();
+        }
+        return bean;
+    }
+
+    /**
+     * Runs the action on the calling thread and returns the statements it executed.
+     */
+    public Recording record(Runnable action) {
+        synchronized (executions) {
+            executions.clear();
+        }
+        recordingThread = Thread.currentThread();
+        try {
+            action.run();
+        } finally {
+            recordingThread = null;
+        }
+        synchronized (executions) {
+            return new Recording(List.copyOf(executions));
+        }
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        if (Thread.currentThread() != recordingThread || queryInfoList.isEmpty()) {
+            return;
+        }
+        String sql = queryInfoList.get(0).getQuery().strip().toLowerCase(Locale.ROOT);
+        int rows = execInfo.isBatch() ? execInfo.getBatchSize() : 1;
+        synchronized (executions) {
+            executions.add(new Execution(sql, execInfo.isBatch(), rows));
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.ecommerce.project.config;
+
+import com.ecommerce.project.Fixtures;
+import com.ecommerce.project.PostgresIntegrationTest;
+import com.ecommerce.project.model.Product;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * The ETag follows the body: an unchanged response revalidates with 304, and a stock change
+ * that does not bump the catalog version still produces a new tag.
+ */
+@AutoConfigureMockMvc
+class CatalogETagFilterTest extends PostgresIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private Fixtures fixtures;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void stockChangeChangesTheTag() throws Exception {
+        Product product = fixtures.product(fixtures.category(), 10, 25.0);
+        String url = "/api/public/products/batch?ids=" + product.getProductId();
+
+        MvcResult first = mockMvc.perform(get(url)).andExpect(status().isOk()).andReturn();
+        String etag = first.getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(etag).isNotNull();
+
+        MvcResult revalidated = mockMvc.perform(get(url).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified()).andReturn();
+        assertThat(revalidated.getResponse().getContentAsByteArray()).isEmpty();
+
+        // A checkout's stock decrement, which leaves the catalog version alone
+        jdbcTemplate.update("UPDATE products SET quantity = quantity - 1 WHERE product_id = ?", product.getProductId());
+
+        MvcResult changed = mockMvc.perform(get(url).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk()).andReturn();
+        assertThat(changed.getResponse().getHeader(HttpHeaders.ETAG)).isNotEqualTo(etag);
+        assertThat(changed.getResponse().getContentAsString()).contains("\"quantity\":9");
+    }
+}
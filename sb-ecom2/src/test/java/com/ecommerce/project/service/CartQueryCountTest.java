@@ -0,0 +1,137 @@
+package com.ecommerce.project.service;
+
+import com.ecommerce.project.Fixtures;
+import com.ecommerce.project.PostgresIntegrationTest;
+import com.ecommerce.project.QueryCounter;
+import com.ecommerce.project.model.Cart;
+import com.ecommerce.project.model.Category;
+import com.ecommerce.project.model.Product;
+import com.ecommerce.project.model.User;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Pins the statements each cart operation costs, for a one-line and a ten-line cart alike: the
+ * aggregate is loaded with one fetch-joined query however many lines it has.
+ */
+class CartQueryCountTest extends PostgresIntegrationTest {
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private ProductCache productCache;
+
+    @Autowired
+    private Fixtures fixtures;
+
+    @Autowired
+    private QueryCounter queryCounter;
+
+    private Category category;
+    private Shopper small;
+    private Shopper large;
+
+    private record Shopper(User user, Cart cart, Product inCart, Product notInCart) {
+    }
+
+    @BeforeEach
+    void carts() {
+        category = fixtures.category();
+        small = shopper(1);
+        large = shopper(10);
+    }
+
+    @AfterEach
+    void logout() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void getUserCartIsOneQuery() {
+        assertStatements(1, shopper -> () -> cartService.getUserCart(shopper.user().getEmail()));
+    }
+
+    @Test
+    void getCartIsOneQuery() {
+        assertStatements(1, shopper -> () -> cartService.getCart(shopper.user().getEmail(), shopper.cart().getCartId()));
+    }
+
+    @Test
+    void addProductToCart() {
+        // User, cart id, insert the line, recompute the total, reload the cart
+        assertStatements(5, shopper -> () -> cartService.addProductToCart(shopper.notInCart().getProductId(), 1));
+    }
+
+    @Test
+    void updateProductQuantityInCart() {
+        // User, cart id, change the line, recompute the total, reload the cart
+        assertStatements(5, shopper -> () -> cartService.updateProductQuantityInCart(shopper.inCart().getProductId(), 1));
+    }
+
+    @Test
+    void deleteProductFromCart() {
+        // Cart exists, delete the line, recompute the total
+        assertStatements(3, shopper -> () -> cartService.deleteProductFromCart(shopper.cart().getCartId(),
+                shopper.inCart().getProductId()));
+    }
+
+    @Test
+    void removeProductFromAllCarts() {
+        Product removed = fixtures.product(category, 50, 7.0);
+        for (Shopper shopper : List.of(small, large)) {
+            fixtures.cart(shopper.user(), Map.of(removed, 3));
+        }
+
+        QueryCounter.Recording recording = queryCounter.record(
+                () -> cartService.removeProductFromAllCarts(removed.getProductId()));
+
+        // Lines, then the carts they belonged to: the lock order of every other cart write
+        assertThat(recording.executions()).as(recording.toString())
+                .extracting(QueryCounter.Execution::sql)
+                .satisfiesExactly(
+                        sql -> assertThat(sql).startsWith("delete from cart_items"),
+                        sql -> assertThat(sql).startsWith("update carts"));
+        for (Shopper shopper : List.of(small, large)) {
+            assertThat(cartService.getUserCart(shopper.user().getEmail()).getTotalPrice())
+                    .isEqualTo(shopper.cart().getTotalPrice());
+        }
+    }
+
+    private void assertStatements(int expected, Function<Shopper, Runnable> operation) {
+        for (Shopper shopper : List.of(small, large)) {
+            // Product snapshots come from the cache; warm it so the counts do not depend on earlier tests
+            productCache.get(shopper.inCart().getProductId());
+            productCache.get(shopper.notInCart().getProductId());
+            SecurityContextHolder.getContext().setAuthentication(
+                    new UsernamePasswordAuthenticationToken(shopper.user().getUserName(), null, List.of()));
+
+            QueryCounter.Recording recording = queryCounter.record(operation.apply(shopper));
+
+            assertThat(recording.statements())
+                    .as("%d-line cart: %s", shopper.cart().getCartItems().size(), recording)
+                    .isEqualTo(expected);
+        }
+    }
+
+    private Shopper shopper(int lines) {
+        User user = fixtures.user();
+        Map<Product, Integer> items = new LinkedHashMap<>();
+        for (int i = 0; i < lines; i++) {
+            items.put(fixtures.product(category, 50, 10.0 + i), 2);
+        }
+        Cart cart = fixtures.cart(user, items);
+        return new Shopper(user, cart, items.keySet().iterator().next(), fixtures.product(category, 50, 3.0));
+    }
+}
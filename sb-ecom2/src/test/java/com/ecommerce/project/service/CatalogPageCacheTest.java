@@ -0,0 +1,53 @@
+package com.ecommerce.project.service;
+
+import com.ecommerce.project.PostgresIntegrationTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The catalog version lives in the database, so a write made through another instance makes
+ * this instance's cached pages stale within catalog.version.refresh-ms.
+ */
+class CatalogPageCacheTest extends PostgresIntegrationTest {
+
+    private static final CatalogPageCache.Page PAGE =
+            new CatalogPageCache.Page("[]".getBytes(), "application/json", Map.of());
+
+    @Autowired
+    private CatalogPageCache catalogPageCache;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${catalog.version.refresh-ms}")
+    private long refreshMs;
+
+    @Test
+    void ownBumpInvalidatesAtOnce() {
+        catalogPageCache.put("own", catalogPageCache.version(), PAGE);
+        assertThat(catalogPageCache.get("own")).isNotNull();
+
+        catalogPageCache.bump();
+
+        assertThat(catalogPageCache.get("own")).isNull();
+    }
+
+    @Test
+    void otherInstanceBumpInvalidatesAfterRefresh() throws InterruptedException {
+        long before = catalogPageCache.version();
+        catalogPageCache.put("other", before, PAGE);
+
+        // What CatalogPageCache.bump() does on another instance
+        jdbcTemplate.queryForObject("SELECT nextval('catalog_version_seq')", Long.class);
+        Thread.sleep(refreshMs + 100);
+
+        assertThat(catalogPageCache.version()).isGreaterThan(before);
+        assertThat(catalogPageCache.get("other")).isNull();
+    }
+}
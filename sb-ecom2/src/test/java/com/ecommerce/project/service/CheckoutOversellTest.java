@@ -0,0 +1,108 @@
+package com.ecommerce.project.service;
+
+import com.ecommerce.project.Fixtures;
+import com.ecommerce.project.PostgresIntegrationTest;
+import com.ecommerce.project.exceptions.APIException;
+import com.ecommerce.project.model.Address;
+import com.ecommerce.project.model.Category;
+import com.ecommerce.project.model.Product;
+import com.ecommerce.project.model.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Many buyers check out the same scarce products at once. The conditional stock decrement has to
+ * let exactly as many orders through as there is stock, and fail the rest cleanly.
+ */
+class CheckoutOversellTest extends PostgresIntegrationTest {
+
+    private static final int BUYERS = 40;
+    private static final int STOCK = 15;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private Fixtures fixtures;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void concurrentCheckoutsNeverOversell() throws Exception {
+        Category category = fixtures.category();
+        Product scarce = fixtures.product(category, STOCK, 10.0);
+        // A second, plentiful line in every cart, listed in the opposite order for half the buyers,
+        // so the row locks of both products are contended in both orders
+        Product plentiful = fixtures.product(category, BUYERS * 10, 5.0);
+
+        List<String> emails = new ArrayList<>();
+        List<Long> addressIds = new ArrayList<>();
+        for (int i = 0; i < BUYERS; i++) {
+            User buyer = fixtures.user();
+            Address address = fixtures.address(buyer);
+            fixtures.cart(buyer, i % 2 == 0 ? Map.of(scarce, 1, plentiful, 2) : Map.of(plentiful, 2, scarce, 1));
+            emails.add(buyer.getEmail());
+            addressIds.add(address.getAddressId());
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(BUYERS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> results = new ArrayList<>();
+        for (int i = 0; i < BUYERS; i++) {
+            String email = emails.get(i);
+            Long addressId = addressIds.get(i);
+            String paymentId = Fixtures.unique("pi_");
+            Callable<Boolean> checkout = () -> {
+                start.await();
+                try {
+                    orderService.placeOrder(email, addressId, "CARD", "Stripe", paymentId, "succeeded", "Payment successful");
+                    return true;
+                } catch (APIException e) {
+                    assertThat(e.getMessage()).startsWith("Not enough stock");
+                    return false;
+                }
+            };
+            results.add(pool.submit(checkout));
+        }
+        start.countDown();
+
+        int placed = 0;
+        for (Future<Boolean> result : results) {
+            if (result.get(2, TimeUnit.MINUTES)) {
+                placed++;
+            }
+        }
+        pool.shutdown();
+
+        assertThat(placed).isEqualTo(STOCK);
+        assertThat(quantity(scarce)).isZero();
+        assertThat(quantity(plentiful)).isEqualTo(BUYERS * 10 - STOCK * 2);
+        assertThat(orderedQuantity(scarce)).isEqualTo(STOCK);
+        // Failed checkouts rolled back completely, including the plentiful line
+        assertThat(orderedQuantity(plentiful)).isEqualTo(STOCK * 2);
+    }
+
+    private int quantity(Product product) {
+        return jdbcTemplate.queryForObject("SELECT quantity FROM products WHERE product_id = ?",
+                Integer.class, product.getProductId());
+    }
+
+    private int orderedQuantity(Product product) {
+        return jdbcTemplate.queryForObject("SELECT COALESCE(SUM(quantity), 0) FROM order_items WHERE product_id = ?",
+                Integer.class, product.getProductId());
+    }
+}
@@ -0,0 +1,83 @@
+package com.ecommerce.project.service;
+
+import com.ecommerce.project.Fixtures;
+import com.ecommerce.project.PostgresIntegrationTest;
+import com.ecommerce.project.exceptions.APIException;
+import com.ecommerce.project.model.Address;
+import com.ecommerce.project.model.OrderIntent;
+import com.ecommerce.project.model.Product;
+import com.ecommerce.project.model.User;
+import com.ecommerce.project.payload.OrderIntentDTO;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * A double-submitted async checkout: the workers may run both intents at once, but only one
+ * order comes out of the cart. With an Idempotency-Key the second submit is not queued at all.
+ */
+class CheckoutQueueTest extends PostgresIntegrationTest {
+
+    @Autowired
+    private CheckoutQueue checkoutQueue;
+
+    @Autowired
+    private Fixtures fixtures;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void doubleSubmitPlacesOneOrder() throws InterruptedException {
+        Product product = fixtures.product(fixtures.category(), 10, 10.0);
+        User buyer = fixtures.user();
+        Address address = fixtures.address(buyer);
+        fixtures.cart(buyer, Map.of(product, 2));
+
+        OrderIntentDTO first = checkoutQueue.enqueue(buyer.getEmail(), address.getAddressId(), null);
+        OrderIntentDTO second = checkoutQueue.enqueue(buyer.getEmail(), address.getAddressId(), null);
+
+        List<String> statuses = List.of(awaitOutcome(buyer, first), awaitOutcome(buyer, second));
+        assertThat(statuses).containsExactlyInAnyOrder(OrderIntent.COMPLETED, OrderIntent.FAILED);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM orders WHERE email = ?",
+                Integer.class, buyer.getEmail())).isEqualTo(1);
+        assertThat(jdbcTemplate.queryForObject("SELECT quantity FROM products WHERE product_id = ?",
+                Integer.class, product.getProductId())).isEqualTo(8);
+    }
+
+    @Test
+    void repeatedKeyReturnsTheFirstIntent() {
+        Product product = fixtures.product(fixtures.category(), 10, 10.0);
+        User buyer = fixtures.user();
+        Address address = fixtures.address(buyer);
+        Address otherAddress = fixtures.address(buyer);
+        fixtures.cart(buyer, Map.of(product, 1));
+        String key = Fixtures.unique("key-");
+
+        OrderIntentDTO first = checkoutQueue.enqueue(buyer.getEmail(), address.getAddressId(), key);
+        OrderIntentDTO retry = checkoutQueue.enqueue(buyer.getEmail(), address.getAddressId(), key);
+
+        assertThat(retry.getReference()).isEqualTo(first.getReference());
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM order_intents WHERE email = ?",
+                Integer.class, buyer.getEmail())).isEqualTo(1);
+        assertThatThrownBy(() -> checkoutQueue.enqueue(buyer.getEmail(), otherAddress.getAddressId(), key))
+                .isInstanceOf(APIException.class);
+    }
+
+    private String awaitOutcome(User buyer, OrderIntentDTO intent) throws InterruptedException {
+        for (int i = 0; i < 300; i++) {
+            String status = checkoutQueue.getStatus(buyer.getEmail(), intent.getReference()).getStatus();
+            if (!status.equals(OrderIntent.PENDING) && !status.equals(OrderIntent.PROCESSING)) {
+                return status;
+            }
+            Thread.sleep(100);
+        }
+        throw new AssertionError("Intent " + intent.getReference() + " was not processed");
+    }
+}
@@ -0,0 +1,80 @@
+package com.ecommerce.project.service;
+
+import com.ecommerce.project.Fixtures;
+import com.ecommerce.project.PostgresIntegrationTest;
+import com.ecommerce.project.QueryCounter;
+import com.ecommerce.project.model.Address;
+import com.ecommerce.project.model.Category;
+import com.ecommerce.project.model.Product;
+import com.ecommerce.project.model.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Round trips per checkout with JDBC batching on (the application's settings): the order items
+ * go out as one batch, so a 20-line checkout costs no more round trips than a 1-line one.
+ * {@link CheckoutStatementsUnbatchedTest} runs the same checkouts with batching off, which is
+ * the one-INSERT-per-row profile IDENTITY ids used to force. Both print their counts.
+ */
+class CheckoutStatementsTest extends PostgresIntegrationTest {
+
+    static final int[] CART_LINES = {1, 5, 20};
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private Fixtures fixtures;
+
+    @Autowired
+    private QueryCounter queryCounter;
+
+    @Test
+    void roundTripsDoNotGrowWithCartLines() {
+        Map<Integer, QueryCounter.Recording> checkouts = measure();
+
+        assertThat(roundTrips(checkouts, 20)).isEqualTo(roundTrips(checkouts, 1));
+        assertThat(checkouts.get(20).rowsWritten()).isGreaterThan(checkouts.get(1).rowsWritten());
+    }
+
+    Map<Integer, QueryCounter.Recording> measure() {
+        Category category = fixtures.category();
+        // Warm-up checkout: the first one of a run also fetches fresh blocks of sequence values
+        checkout(category, 1);
+
+        Map<Integer, QueryCounter.Recording> checkouts = new LinkedHashMap<>();
+        for (int lines : CART_LINES) {
+            QueryCounter.Recording recording = checkout(category, lines);
+            checkouts.put(lines, recording);
+            System.out.println(getClass().getSimpleName() + ": checkout of " + lines + " lines = "
+                    + recording.statements() + " round trips (" + recording.batches() + " batches), "
+                    + recording.rowsWritten() + " rows written");
+        }
+        return checkouts;
+    }
+
+    // Sequence block fetches are left out: when one falls due depends on how many ids earlier
+    // tests in the same run drew, not on the checkout
+    static int roundTrips(Map<Integer, QueryCounter.Recording> checkouts, int lines) {
+        return (int) checkouts.get(lines).executions().stream()
+                .filter(execution -> !execution.sql().startsWith("select nextval("))
+                .count();
+    }
+
+    private QueryCounter.Recording checkout(Category category, int lines) {
+        User buyer = fixtures.user();
+        Address address = fixtures.address(buyer);
+        Map<Product, Integer> items = new LinkedHashMap<>();
+        for (int i = 0; i < lines; i++) {
+            items.put(fixtures.product(category, 10, 10.0 + i), 1);
+        }
+        fixtures.cart(buyer, items);
+        return queryCounter.record(() -> orderService.placeOrder(buyer.getEmail(), address.getAddressId(), "CARD",
+                "Stripe", Fixtures.unique("pi_"), "succeeded", "Payment successful"));
+    }
+}
@@ -0,0 +1,26 @@
+package com.ecommerce.project.service;
+
+import com.ecommerce.project.QueryCounter;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The baseline for {@link CheckoutStatementsTest}: the same checkouts with Hibernate batching off,
+ * so every order item is its own INSERT round trip.
+ */
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.jdbc.batch_size=0")
+class CheckoutStatementsUnbatchedTest extends CheckoutStatementsTest {
+
+    @Test
+    @Override
+    void roundTripsDoNotGrowWithCartLines() {
+        Map<Integer, QueryCounter.Recording> checkouts = measure();
+
+        // Without batching the count grows by one INSERT per extra line
+        assertThat(roundTrips(checkouts, 20)).isEqualTo(roundTrips(checkouts, 1) + 19);
+    }
+}
@@ -0,0 +1,128 @@
+package com.ecommerce.project.service;
+
+import com.ecommerce.project.Fixtures;
+import com.ecommerce.project.PostgresIntegrationTest;
+import com.ecommerce.project.exceptions.APIException;
+import com.ecommerce.project.model.Address;
+import com.ecommerce.project.model.Product;
+import com.ecommerce.project.model.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Hot-inventory checkouts racing stock edits (reseeds) and flushes: the counter must never
+ * hand out more than the product has.
+ */
+class HotInventoryTest extends PostgresIntegrationTest {
+
+    private static final int BUYERS = 60;
+    private static final int STOCK = 40;
+
+    @Autowired
+    private HotInventory hotInventory;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private Fixtures fixtures;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void reseedsAndFlushesDuringCheckoutsNeverOversell() throws Exception {
+        Product product = fixtures.product(fixtures.category(), STOCK, 10.0);
+        Long productId = product.getProductId();
+
+        List<String> emails = new ArrayList<>();
+        List<Long> addressIds = new ArrayList<>();
+        for (int i = 0; i < BUYERS; i++) {
+            User buyer = fixtures.user();
+            Address address = fixtures.address(buyer);
+            fixtures.cart(buyer, Map.of(product, 1));
+            emails.add(buyer.getEmail());
+            addressIds.add(address.getAddressId());
+        }
+
+        hotInventory.enable(productId);
+        ExecutorService pool = Executors.newFixedThreadPool(BUYERS + 2);
+        AtomicBoolean checkingOut = new AtomicBoolean(true);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            // A stock edit that leaves the quantity as it is, committed over and over
+            Future<?> editor = pool.submit(() -> {
+                start.await();
+                while (checkingOut.get()) {
+                    transactionTemplate.executeWithoutResult(status -> {
+                        jdbcTemplate.update("UPDATE products SET quantity = quantity WHERE product_id = ?", productId);
+                        hotInventory.reseed(productId);
+                    });
+                }
+                return null;
+            });
+            Future<?> flusher = pool.submit(() -> {
+                start.await();
+                while (checkingOut.get()) {
+                    hotInventory.flush();
+                }
+                return null;
+            });
+
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < BUYERS; i++) {
+                String email = emails.get(i);
+                Long addressId = addressIds.get(i);
+                results.add(pool.submit(() -> {
+                    start.await();
+                    try {
+                        orderService.placeOrder(email, addressId, "CARD", "Stripe", Fixtures.unique("pi_"),
+                                "succeeded", "Payment successful");
+                        return true;
+                    } catch (APIException e) {
+                        return false;
+                    }
+                }));
+            }
+            start.countDown();
+
+            int placed = 0;
+            for (Future<Boolean> result : results) {
+                if (result.get(2, TimeUnit.MINUTES)) {
+                    placed++;
+                }
+            }
+            checkingOut.set(false);
+            editor.get(1, TimeUnit.MINUTES);
+            flusher.get(1, TimeUnit.MINUTES);
+
+            hotInventory.flush();
+            assertThat(placed).isEqualTo(STOCK);
+            assertThat(hotInventory.available(productId)).isZero();
+            assertThat(jdbcTemplate.queryForObject("SELECT quantity FROM products WHERE product_id = ?",
+                    Integer.class, productId)).isZero();
+        } finally {
+            checkingOut.set(false);
+            pool.shutdownNow();
+            // Leave no hot product behind for the contexts of other test classes
+            hotInventory.disable(productId);
+        }
+    }
+}
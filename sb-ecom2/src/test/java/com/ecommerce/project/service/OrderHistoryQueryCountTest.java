@@ -0,0 +1,97 @@
+package com.ecommerce.project.service;
+
+import com.ecommerce.project.Fixtures;
+import com.ecommerce.project.PostgresIntegrationTest;
+import com.ecommerce.project.QueryCounter;
+import com.ecommerce.project.model.Address;
+import com.ecommerce.project.model.Category;
+import com.ecommerce.project.model.Product;
+import com.ecommerce.project.model.User;
+import com.ecommerce.project.payload.OrderDTO;
+import com.ecommerce.project.payload.OrderResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * An order-history page is a fixed number of statements however many orders it holds: the page
+ * of order keys, then one fetch of the orders with their address, payment, items and products.
+ */
+class OrderHistoryQueryCountTest extends PostgresIntegrationTest {
+
+    private static final int ORDERS = 12;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private Fixtures fixtures;
+
+    @Autowired
+    private QueryCounter queryCounter;
+
+    private User buyer;
+
+    @BeforeEach
+    void orderHistory() {
+        Category category = fixtures.category();
+        buyer = fixtures.user();
+        Address address = fixtures.address(buyer);
+        for (int i = 0; i < ORDERS; i++) {
+            Product first = fixtures.product(category, 10, 20.0);
+            Product second = fixtures.product(category, 10, 5.0);
+            fixtures.cart(buyer, Map.of(first, 1, second, 2));
+            orderService.placeOrder(buyer.getEmail(), address.getAddressId(), "CARD", "Stripe",
+                    Fixtures.unique("pi_"), "succeeded", "Payment successful");
+        }
+    }
+
+    @Test
+    void userOrdersPageCostsTheSameForAnyPageSize() {
+        QueryCounter.Recording small = userOrdersPage(3);
+        QueryCounter.Recording large = userOrdersPage(10);
+
+        // The slice of order keys and the details fetch
+        assertThat(small.statements()).as(small.toString()).isEqualTo(2);
+        assertThat(large.statements()).as(large.toString()).isEqualTo(2);
+    }
+
+    @Test
+    void ordersByUserIdPageCostsTheSameForAnyPageSize() {
+        QueryCounter.Recording small = ordersByUserIdPage(3);
+        QueryCounter.Recording large = ordersByUserIdPage(10);
+
+        // The page of order keys, its COUNT and the details fetch
+        assertThat(small.statements()).as(small.toString()).isEqualTo(3);
+        assertThat(large.statements()).as(large.toString()).isEqualTo(3);
+    }
+
+    private QueryCounter.Recording userOrdersPage(int pageSize) {
+        OrderResponse[] response = new OrderResponse[1];
+        QueryCounter.Recording recording = queryCounter.record(() -> response[0] = orderService.getUserOrders(
+                buyer.getEmail(), 0, pageSize, "orderId", "desc", false));
+        assertFullyMapped(response[0], pageSize);
+        return recording;
+    }
+
+    private QueryCounter.Recording ordersByUserIdPage(int pageSize) {
+        OrderResponse[] response = new OrderResponse[1];
+        QueryCounter.Recording recording = queryCounter.record(() -> response[0] = orderService.getOrdersByUserId(
+                buyer.getUserId(), 0, pageSize, "orderId", "desc"));
+        assertFullyMapped(response[0], pageSize);
+        return recording;
+    }
+
+    private void assertFullyMapped(OrderResponse response, int pageSize) {
+        assertThat(response.getContent()).hasSize(pageSize);
+        for (OrderDTO order : response.getContent()) {
+            assertThat(order.getPayment()).isNotNull();
+            assertThat(order.getOrderItems()).hasSize(2)
+                    .allSatisfy(item -> assertThat(item.getProduct().getProductName()).isNotNull());
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.ecommerce.project.service;
+
+import com.ecommerce.project.Fixtures;
+import com.ecommerce.project.PostgresIntegrationTest;
+import com.ecommerce.project.model.Address;
+import com.ecommerce.project.model.Product;
+import com.ecommerce.project.model.User;
+import com.ecommerce.project.payload.OrderDTO;
+import com.ecommerce.project.payload.OrderResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * History is bounded by the partitions actually attached, not by the archive age: an order older
+ * than orders.archive.after-months that still sits in an attached partition stays visible.
+ */
+class OrderPartitionsTest extends PostgresIntegrationTest {
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderPartitions orderPartitions;
+
+    @Autowired
+    private Fixtures fixtures;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${orders.archive.after-months}")
+    private int archiveAfterMonths;
+
+    @Test
+    void orderOlderThanTheArchiveAgeStaysVisibleUntilArchived() {
+        Product product = fixtures.product(fixtures.category(), 10, 20.0);
+        User buyer = fixtures.user();
+        Address address = fixtures.address(buyer);
+        fixtures.cart(buyer, Map.of(product, 1));
+        OrderDTO order = orderService.placeOrder(buyer.getEmail(), address.getAddressId(), "CARD", "Stripe",
+                Fixtures.unique("pi_"), "succeeded", "Payment successful");
+
+        // Rows written before the tables were partitioned live on in orders_before_YYYYMM
+        LocalDate placedLongAgo = LocalDate.now().minusMonths(archiveAfterMonths + 6);
+        jdbcTemplate.update("UPDATE orders SET order_date = ? WHERE order_id = ?",
+                Date.valueOf(placedLongAgo), order.getOrderId());
+        jdbcTemplate.update("UPDATE order_items SET order_date = ? WHERE order_id = ?",
+                Date.valueOf(placedLongAgo), order.getOrderId());
+
+        assertThat(orderPartitions.onlineSince()).isBeforeOrEqualTo(placedLongAgo);
+        OrderResponse history = orderService.getUserOrders(buyer.getEmail(), 0, 10, "orderId", "desc", false);
+        assertThat(history.getContent()).extracting(OrderDTO::getOrderId).containsExactly(order.getOrderId());
+        assertThat(history.getContent().get(0).getOrderItems()).hasSize(1);
+    }
+}
@@ -0,0 +1,82 @@
+package com.ecommerce.project.service;
+
+import com.ecommerce.project.Fixtures;
+import com.ecommerce.project.PostgresIntegrationTest;
+import com.ecommerce.project.QueryCounter;
+import com.ecommerce.project.model.Category;
+import com.ecommerce.project.model.Product;
+import com.ecommerce.project.payload.ProductDTO;
+import com.ecommerce.project.payload.ProductResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Walks keyset pages over a sort key with ties and checks every product comes back exactly once,
+ * in (key, productId) order, with each page seeking by a row-value comparison.
+ */
+class ProductCursorPaginationTest extends PostgresIntegrationTest {
+
+    private static final double[] PRICES = {30, 10, 20, 10, 30, 10, 20};
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private Fixtures fixtures;
+
+    @Autowired
+    private QueryCounter queryCounter;
+
+    private Category category;
+    private final List<Product> products = new ArrayList<>();
+
+    @BeforeEach
+    void productsWithTiedPrices() {
+        category = fixtures.category();
+        for (double price : PRICES) {
+            products.add(fixtures.product(category, 10, price));
+        }
+    }
+
+    @Test
+    void ascendingPagesCoverEveryProductOnce() {
+        assertThat(walk("asc")).containsExactlyElementsOf(expected(Comparator
+                .comparingDouble(Product::getPrice).thenComparing(Product::getProductId)));
+    }
+
+    @Test
+    void descendingPagesCoverEveryProductOnce() {
+        assertThat(walk("desc")).containsExactlyElementsOf(expected(Comparator
+                .comparingDouble(Product::getPrice).thenComparing(Product::getProductId).reversed()));
+    }
+
+    private List<Long> walk(String sortOrder) {
+        List<Long> seen = new ArrayList<>();
+        String after = "";
+        do {
+            String cursor = after;
+            ProductResponse[] page = new ProductResponse[1];
+            QueryCounter.Recording recording = queryCounter.record(() -> page[0] = productService.getAllProductsAfter(
+                    cursor, 3, "price", sortOrder, null, category.getCategoryName()));
+            if (!cursor.isEmpty()) {
+                // A bound row-value comparison, not an OR of column predicates
+                assertThat(recording.executions().get(0).sql()).as(recording.toString())
+                        .containsPattern("\\(p1_0\\.price, p1_0\\.product_id\\) [<>] \\(\\?, \\?\\)");
+            }
+            page[0].getContent().stream().map(ProductDTO::getProductId).forEach(seen::add);
+            after = page[0].getNextCursor();
+        } while (after != null);
+        return seen;
+    }
+
+    private List<Long> expected(Comparator<Product> order) {
+        return products.stream().sorted(order).map(Product::getProductId).toList();
+    }
+}
@@ -0,0 +1,76 @@
+package com.ecommerce.project.service;
+
+import com.ecommerce.project.Fixtures;
+import com.ecommerce.project.PostgresIntegrationTest;
+import com.ecommerce.project.QueryCounter;
+import com.ecommerce.project.model.Category;
+import com.ecommerce.project.model.Product;
+import com.ecommerce.project.payload.ProductResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Product listings are projected straight into ProductDTO: a page is one SELECT over products,
+ * and the cart lines that reference the products are never read.
+ */
+class ProductListingQueryCountTest extends PostgresIntegrationTest {
+
+    private static final int PRODUCTS = 8;
+    private static final int PAGE_SIZE = 5;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private Fixtures fixtures;
+
+    @Autowired
+    private QueryCounter queryCounter;
+
+    private Category category;
+
+    @BeforeEach
+    void popularProducts() {
+        category = fixtures.category();
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < PRODUCTS; i++) {
+            products.add(fixtures.product(category, 100, 10.0 + i));
+        }
+        // Every product sits in several carts, which the old eager mapping loaded with each row
+        for (int i = 0; i < 3; i++) {
+            fixtures.cart(fixtures.user(), Map.of(products.get(0), 1, products.get(1), 2, products.get(2), 3));
+        }
+    }
+
+    @Test
+    void catalogPageIsOneSelect() {
+        ProductResponse[] response = new ProductResponse[1];
+        QueryCounter.Recording recording = queryCounter.record(() -> response[0] = productService.getAllProducts(
+                0, PAGE_SIZE, "price", "asc", null, category.getCategoryName(), false));
+
+        assertThat(response[0].getContent()).hasSize(PAGE_SIZE);
+        assertThat(response[0].isLastPage()).isFalse();
+        assertThat(recording.statements()).as(recording.toString()).isEqualTo(1);
+        assertThat(recording.touching("cart_items")).as(recording.toString()).isZero();
+    }
+
+    @Test
+    void categoryPageIsOneSelectPlusItsCount() {
+        ProductResponse[] response = new ProductResponse[1];
+        QueryCounter.Recording recording = queryCounter.record(() -> response[0] = productService.searchByCategory(
+                category.getCategoryId(), 0, PAGE_SIZE, "price", "asc"));
+
+        assertThat(response[0].getContent()).hasSize(PAGE_SIZE);
+        assertThat(response[0].getTotalElements()).isEqualTo(PRODUCTS);
+        // The category lookup, the page of products and the COUNT behind the page totals
+        assertThat(recording.statements()).as(recording.toString()).isEqualTo(3);
+        assertThat(recording.touching("cart_items")).as(recording.toString()).isZero();
+    }
+}